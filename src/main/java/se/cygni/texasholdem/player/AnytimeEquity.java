@@ -0,0 +1,123 @@
+package se.cygni.texasholdem.player;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Equity that keeps getting better until a deadline, then returns what it has.
+ *
+ * Starts from the cheap Scoring estimate and plays out random deals in small batches
+ * on every core, checking the clock between batches. The Scoring estimate counts as
+ * a few samples, so it only matters when there was next to no time.
+ * Also stops early once the confidence interval is narrow enough.
+ */
+public class AnytimeEquity {
+
+    private static final int BATCH = 256;
+
+    /** Weight of the Scoring estimate, in samples. */
+    private static final double PRIOR_WEIGHT = 16.0;
+
+    /** Half width of the 95% interval good enough to stop before the deadline. */
+    public static final double DEFAULT_PRECISION = 0.005;
+
+    private static final double Z_95 = 1.96;
+
+    private static final int THREADS = Runtime.getRuntime().availableProcessors();
+    private static final ExecutorService POOL = Executors.newFixedThreadPool(THREADS, new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+            final Thread t = new Thread(r, "AnytimeEquity");
+            t.setDaemon(true);
+            return t;
+        }
+    });
+
+    private AnytimeEquity(){}
+
+    public static EquityEstimate estimate(long hole, long board, int opponents, long deadlineNanos){
+        return estimate(hole, board, opponents, deadlineNanos, DEFAULT_PRECISION);
+    }
+
+    /**
+     * @param hole My two cards
+     * @param board Known community cards
+     * @param opponents Number of opponents still in the hand
+     * @param deadlineNanos Value of System.nanoTime() at which to return
+     * @param precision Returns early when the confidence interval is at most this much to each side
+     */
+    public static EquityEstimate estimate(final long hole, final long board, final int opponents,
+                                          final long deadlineNanos, final double precision){
+        final double prior = prior(hole, board, opponents);
+        final List<Future<MonteCarloEquity.Tally>> futures = new ArrayList<Future<MonteCarloEquity.Tally>>(THREADS);
+        for(int ix = 0; ix < THREADS; ++ix){
+            final long seed = SplitMix64.seed(System.nanoTime() ^ hole ^ board, ix);
+            futures.add(POOL.submit(new Callable<MonteCarloEquity.Tally>() {
+                @Override
+                public MonteCarloEquity.Tally call() {
+                    return refine(hole, board, opponents, deadlineNanos, precision * Math.sqrt(THREADS), seed);
+                }
+            }));
+        }
+
+        final MonteCarloEquity.Tally total = new MonteCarloEquity.Tally();
+        try {
+            for(Future<MonteCarloEquity.Tally> f : futures){
+                total.add(f.get());
+            }
+        } catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e){
+            throw new IllegalStateException(e.getCause());
+        }
+        return combine(prior, total);
+    }
+
+    /**
+     * @return Scoring estimate, only defined against one opponent.
+     */
+    private static double prior(long hole, long board, int opponents){
+        final double headsUp = Scoring.chanceOfWinning(hole | board, board);
+        if(opponents <= 1){
+            return headsUp;
+        }
+        return Math.pow(headsUp, opponents);
+    }
+
+    private static MonteCarloEquity.Tally refine(long hole, long board, int opponents, long deadlineNanos,
+                                                 double precision, long seed){
+        final SplitMix64 random = new SplitMix64(seed);
+        final MonteCarloEquity.Tally tally = new MonteCarloEquity.Tally();
+        while(System.nanoTime() < deadlineNanos){
+            tally.play(hole, board, opponents, BATCH, random);
+            if(halfWidth(tally) <= precision){
+                break;
+            }
+        }
+        return tally;
+    }
+
+    private static double halfWidth(MonteCarloEquity.Tally tally){
+        if(tally.samples < 2){
+            return 1.0;
+        }
+        final double mean = tally.share / tally.samples;
+        final double variance = Math.max(0.0, tally.shareSquares / tally.samples - mean * mean);
+        return Z_95 * Math.sqrt(variance / tally.samples);
+    }
+
+    static EquityEstimate combine(double prior, MonteCarloEquity.Tally tally){
+        final double equity = (prior * PRIOR_WEIGHT + tally.share) / (PRIOR_WEIGHT + tally.samples);
+        final double halfWidth = halfWidth(tally);
+        return new EquityEstimate(equity,
+                Math.max(0.0, equity - halfWidth),
+                Math.min(1.0, equity + halfWidth),
+                tally.samples);
+    }
+}
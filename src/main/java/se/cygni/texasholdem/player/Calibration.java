@@ -0,0 +1,107 @@
+package se.cygni.texasholdem.player;
+
+/**
+ * How well estimates of the share of the pot match the shares actually won:
+ * a reliability curve of estimates binned by value against the mean outcome,
+ * the Brier score and the log-loss. A win is 1, a tie between two players 0.5
+ * and a loss 0. Only sums are kept, per bin for the curve and over all rounds
+ * for the scores, so shards of a simulation add up to the whole.
+ */
+public class Calibration {
+
+    /** Number of bins of estimates in [0, 1] on the reliability curve. */
+    public static final int BINS = 20;
+    /** Estimates are kept this far from 0 and 1 in the log-loss. */
+    private static final double EPSILON = 1e-6;
+
+    private final long[] counts = new long[BINS];
+    private final double[] estimates = new double[BINS];
+    private final double[] outcomes = new double[BINS];
+    private long total = 0;
+    private double squaredError = 0.0;
+    private double logLoss = 0.0;
+
+    /**
+     * @param estimate Estimated share of the pot, in [0, 1]
+     * @param outcome Share actually won, in [0, 1]
+     */
+    public void add(double estimate, double outcome){
+        final int bin = Simulate.Histogram.intervalOf(estimate, BINS);
+        counts[bin]++;
+        estimates[bin] += estimate;
+        outcomes[bin] += outcome;
+        total++;
+
+        final double error = estimate - outcome;
+        squaredError += error*error;
+        final double p = Math.min(Math.max(estimate, EPSILON), 1 - EPSILON);
+        logLoss -= outcome*Math.log(p) + (1 - outcome)*Math.log(1 - p);
+    }
+
+    public void add(Calibration other){
+        total += other.total;
+        squaredError += other.squaredError;
+        logLoss += other.logLoss;
+        for(int ix=0; ix<BINS; ++ix){
+            counts[ix] += other.counts[ix];
+            estimates[ix] += other.estimates[ix];
+            outcomes[ix] += other.outcomes[ix];
+        }
+    }
+
+    public long getTotal(){
+        return total;
+    }
+
+    /**
+     * @return Mean squared difference between estimate and outcome, 0 is perfect.
+     */
+    public double brierScore(){
+        return squaredError / total;
+    }
+
+    /**
+     * @return Mean cross entropy of the outcomes given the estimates, in nats.
+     */
+    public double logLoss(){
+        return logLoss / total;
+    }
+
+    /**
+     * @return Mean estimate in the bin, NaN if it is empty.
+     */
+    public double meanEstimate(int bin){
+        return estimates[bin] / counts[bin];
+    }
+
+    /**
+     * @return Mean outcome of the estimates in the bin, NaN if it is empty.
+     */
+    public double meanOutcome(int bin){
+        return outcomes[bin] / counts[bin];
+    }
+
+    /**
+     * @return Mean absolute difference of estimate and outcome over the bins, weighted by their size.
+     */
+    public double calibrationError(){
+        double error = 0.0;
+        for(int ix=0; ix<BINS; ++ix){
+            error += Math.abs(estimates[ix] - outcomes[ix]);
+        }
+        return error / total;
+    }
+
+    public void summarize(){
+        System.out.println("\nCalibration of "+total+" estimates:");
+        System.out.println("Brier score: "+brierScore());
+        System.out.println("Log-loss: "+logLoss());
+        System.out.println("Calibration error: "+calibrationError());
+        for(int ix=0; ix<BINS; ++ix){
+            if(counts[ix] > 0){
+                System.out.println("From "+ix/(double) BINS+": \t"+counts[ix]+" \testimate "+meanEstimate(ix)
+                        +" \toutcome "+meanOutcome(ix));
+            }
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package se.cygni.texasholdem.player;
+
+import se.cygni.texasholdem.game.Card;
+import se.cygni.texasholdem.game.definitions.Rank;
+import se.cygni.texasholdem.game.definitions.Suit;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A set of cards packed into a single long, one bit per card.
+ *
+ * Every suit owns a 16 bit lane: bit (16*suit + rank) is set if the card is in the set,
+ * where suit and rank are the ordinals of Suit and Rank (DEUCE = 0, ACE = 12).
+ * The lower 13 bits of a lane is therefore the rank mask of that suit,
+ * so flushes and straights can be found with shifts, AND and popcount.
+ */
+public final class CardSet {
+
+    public static final long EMPTY = 0L;
+
+    public static final int LANE = 16;
+    public static final int RANKS = 13;
+    public static final int SUITS = 4;
+    public static final int RANK_MASK = 0x1FFF;
+
+    /** All four cards of rank DEUCE, shift left by rank to get any other rank. */
+    private static final long RANK_COLUMN = 1L | 1L << LANE | 1L << 2*LANE | 1L << 3*LANE;
+
+    /** Every valid card. */
+    public static final long FULL_DECK = RANK_MASK * RANK_COLUMN;
+
+    private static final Card[] CARDS = new Card[SUITS*LANE];
+    static {
+        for(Suit s : Suit.values()){
+            for(Rank r : Rank.values()){
+                CARDS[index(r.ordinal(), s.ordinal())] = new Card(r, s);
+            }
+        }
+    }
+
+    private CardSet(){}
+
+    /**
+     * @return Bit position of the card, between 0 and 63.
+     */
+    public static int index(int rank, int suit){
+        return suit*LANE + rank;
+    }
+
+    public static int index(Card c){
+        return index(c.getRank().ordinal(), c.getSuit().ordinal());
+    }
+
+    public static int rankOf(int index){
+        return index % LANE;
+    }
+
+    public static int suitOf(int index){
+        return index / LANE;
+    }
+
+    public static long of(int rank, int suit){
+        return 1L << index(rank, suit);
+    }
+
+    public static long of(Card c){
+        return 1L << index(c);
+    }
+
+    public static long of(List<Card> cards){
+        long set = EMPTY;
+        for(Card c : cards){
+            set |= of(c);
+        }
+        return set;
+    }
+
+    public static Card card(int index){
+        return CARDS[index];
+    }
+
+    public static List<Card> toList(long set){
+        final List<Card> cards = new ArrayList<Card>(size(set));
+        for(long rest = set; rest != 0; rest &= rest-1){
+            cards.add(card(Long.numberOfTrailingZeros(rest)));
+        }
+        return cards;
+    }
+
+    public static boolean contains(long set, Card c){
+        return (set & of(c)) != 0;
+    }
+
+    public static int size(long set){
+        return Long.bitCount(set);
+    }
+
+    /**
+     * @return 13 bit rank mask of the cards of this suit.
+     */
+    public static int suitRanks(long set, int suit){
+        return (int) (set >>> suit*LANE) & RANK_MASK;
+    }
+
+    /**
+     * @return 13 bit rank mask of the ranks present in any suit.
+     */
+    public static int ranks(long set){
+        return (int) (set | set >>> LANE | set >>> 2*LANE | set >>> 3*LANE) & RANK_MASK;
+    }
+
+    public static int suitCount(long set, int suit){
+        return Integer.bitCount(suitRanks(set, suit));
+    }
+
+    public static int rankCount(long set, int rank){
+        return Long.bitCount(set & RANK_COLUMN << rank);
+    }
+
+    public static String toString(long set){
+        final StringBuilder s = new StringBuilder("[");
+        for(Card c : toList(set)){
+            if(s.length() > 1){
+                s.append(", ");
+            }
+            s.append(c.toShortString());
+        }
+        return s.append("]").toString();
+    }
+}
@@ -0,0 +1,53 @@
+package se.cygni.texasholdem.player;
+
+/**
+ * Outcome of a hand against the opponents, as fractions of all deals considered.
+ */
+public class Equity {
+
+    private final double win;
+    private final double tie;
+    private final double loss;
+    private final double share;
+
+    /**
+     * Against a single opponent a tie is worth half the pot.
+     */
+    public Equity(double win, double tie, double loss){
+        this(win, tie, loss, win + tie/2);
+    }
+
+    /**
+     * @param share Expected share of the pot, ties split between all tied players.
+     */
+    public Equity(double win, double tie, double loss, double share){
+        this.win = win;
+        this.tie = tie;
+        this.loss = loss;
+        this.share = share;
+    }
+
+    public double getWin() {
+        return win;
+    }
+
+    public double getTie() {
+        return tie;
+    }
+
+    public double getLoss() {
+        return loss;
+    }
+
+    /**
+     * @return Expected share of the pot.
+     */
+    public double getEquity() {
+        return share;
+    }
+
+    @Override
+    public String toString() {
+        return "Equity " + share + " (win " + win + ", tie " + tie + ", loss " + loss + ")";
+    }
+}
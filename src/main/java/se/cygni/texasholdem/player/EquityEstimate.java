@@ -0,0 +1,52 @@
+package se.cygni.texasholdem.player;
+
+/**
+ * An equity estimate together with a confidence interval.
+ */
+public class EquityEstimate {
+
+    private final double equity;
+    private final double low;
+    private final double high;
+    private final long samples;
+
+    public EquityEstimate(double equity, double low, double high, long samples){
+        this.equity = equity;
+        this.low = low;
+        this.high = high;
+        this.samples = samples;
+    }
+
+    /**
+     * @return Expected share of the pot.
+     */
+    public double getEquity() {
+        return equity;
+    }
+
+    /**
+     * @return Lower bound of the 95% confidence interval.
+     */
+    public double getLow() {
+        return low;
+    }
+
+    /**
+     * @return Upper bound of the 95% confidence interval.
+     */
+    public double getHigh() {
+        return high;
+    }
+
+    /**
+     * @return Number of deals played out, 0 if only the prior was used.
+     */
+    public long getSamples() {
+        return samples;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Equity %.4f [%.4f, %.4f] from %d samples", equity, low, high, samples);
+    }
+}
@@ -0,0 +1,16 @@
+package se.cygni.texasholdem.player;
+
+/**
+ * Estimate of the share of the pot against opponents holding random cards,
+ * as plugged into @see Simulate. Implementations in @see EquityEstimators
+ */
+public interface EquityEstimator {
+
+    /**
+     * @param hole My two cards
+     * @param board Known community cards, 0 to 5 of them
+     * @param opponents Number of opponents, between 1 and 9
+     * @return Estimated share of the pot, in [0, 1]
+     */
+    double estimate(long hole, long board, int opponents);
+}
@@ -0,0 +1,83 @@
+package se.cygni.texasholdem.player;
+
+/**
+ * The equity estimators of the bot, to compare them in @see Simulate
+ */
+public final class EquityEstimators {
+
+    /** Deals played out by @see EquityEstimators#MONTE_CARLO */
+    public static final int MONTE_CARLO_SAMPLES = 2000;
+
+    private EquityEstimators(){}
+
+    /**
+     * Chance of a better hand than a uniform opponent, @see Scoring#chanceOfWinning(long, long)
+     * Against several opponents the chance of beating them all, as if they were independent.
+     */
+    public static final EquityEstimator SCORING = new EquityEstimator() {
+        @Override
+        public double estimate(long hole, long board, int opponents) {
+            final double chance = Scoring.chanceOfWinning(hole | board, board);
+            return opponents == 1 ? chance : Math.pow(chance, opponents);
+        }
+    };
+
+    /**
+     * Played out deals, @see MonteCarloEquity
+     */
+    public static final EquityEstimator MONTE_CARLO = new EquityEstimator() {
+        @Override
+        public double estimate(long hole, long board, int opponents) {
+            return MonteCarloEquity.compute(hole, board, opponents, MONTE_CARLO_SAMPLES).getEquity();
+        }
+    };
+
+    /**
+     * The best the bot has on every street, exact only where it can be:
+     * <pre>
+     * preflop    @see PreflopTable, itself sampled by Monte Carlo, or MONTE_CARLO without the table
+     * flop, turn exact against one opponent from the equity tables, or enumerated by @see ExactEquity
+     * river      exact against one opponent, enumerated
+     * </pre>
+     * Against more than one opponent it is MONTE_CARLO after the flop, so a calibration
+     * of this estimator is only one of exact equity heads up after the flop.
+     */
+    public static final EquityEstimator TABLES = new EquityEstimator() {
+        @Override
+        public double estimate(long hole, long board, int opponents) {
+            if(board == CardSet.EMPTY){
+                if(PreflopTable.isLoaded()){
+                    return PreflopTable.equity(hole, opponents);
+                }
+                return MONTE_CARLO.estimate(hole, board, opponents);
+            }
+            if(opponents > 1){
+                return MONTE_CARLO.estimate(hole, board, opponents);
+            }
+            final EquityTable table = EquityTable.getDefault();
+            if(table != null){
+                final float equity = table.equity(hole, board);
+                if(!Float.isNaN(equity)){
+                    return equity;
+                }
+            }
+            return ExactEquity.compute(hole, board).getEquity();
+        }
+    };
+
+    /**
+     * @param name scoring, montecarlo or tables
+     */
+    public static EquityEstimator byName(String name){
+        if("scoring".equalsIgnoreCase(name)){
+            return SCORING;
+        }
+        if("montecarlo".equalsIgnoreCase(name)){
+            return MONTE_CARLO;
+        }
+        if("tables".equalsIgnoreCase(name)){
+            return TABLES;
+        }
+        throw new IllegalArgumentException("Unknown estimator "+name+", expected scoring, montecarlo or tables");
+    }
+}
@@ -0,0 +1,226 @@
+package se.cygni.texasholdem.player;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32;
+
+/**
+ * Precomputed equities read from a binary file mapped into memory with FileChannel#map.
+ * Lookups read the mapped sections where they lie, without copying or locking.
+ *
+ * File layout, big endian:
+ * <pre>
+ * int MAGIC, int VERSION, int number of sections
+ * per section: int id, long offset, long length, int CRC32 of the section bytes
+ * the sections
+ * </pre>
+ * PREFLOP holds a float for every starting hand class and 1 to 9 opponents, as @see PreflopTable
+ * FLOP and TURN hold an int count, 4 bytes of padding, count sorted long keys and count float
+ * equities against one random opponent. Keys are the same for hands that only differ
+ * by renaming the suits, @see EquityTable#key(long, long)
+ *
+ * Every section is checked against its CRC32 once when the file is opened, so that the
+ * lookups made while a bot is to act never pay for it. A damaged section is left out
+ * and the lookups return NaN just as for a missing one.
+ *
+ * Built by @see EquityTableWriter
+ */
+public class EquityTable {
+
+    private static Logger log = LoggerFactory.getLogger(EquityTable.class);
+
+    public static final int MAGIC = 0x54484551; // "THEQ"
+    public static final int VERSION = 1;
+
+    public static final int PREFLOP = 1;
+    public static final int FLOP = 2;
+    public static final int TURN = 3;
+
+    /** System property with the path of the file, see @see EquityTable#getDefault() */
+    public static final String PROPERTY = "texasholdem.equity.tables";
+    public static final String DEFAULT_FILE = "equity_tables.bin";
+
+    static final int HEADER_BYTES = 12;
+    static final int DIRECTORY_ENTRY_BYTES = 24;
+    static final int KEYS_OFFSET = 8;
+
+    private static final int SECTIONS = 4;
+    private static final int[][] PERMUTATIONS = ExactEquity.permutations();
+
+    private final MappedByteBuffer buffer;
+    private final long[] offsets;
+    /** If the section is in the file and not damaged, set once when opened. */
+    private final boolean[] valid;
+
+    private EquityTable(MappedByteBuffer buffer, long[] offsets, boolean[] valid){
+        this.buffer = buffer;
+        this.offsets = offsets;
+        this.valid = valid;
+    }
+
+    /**
+     * Opens the default table on first use, the class loader making it safe without locking later lookups.
+     */
+    private static class Default {
+        private static final EquityTable TABLE = openDefault();
+
+        private static EquityTable openDefault(){
+            final File file = new File(System.getProperty(PROPERTY, DEFAULT_FILE));
+            if(file.isFile()){
+                try {
+                    return open(file);
+                } catch (IOException e){
+                    log.warn("Ignoring equity tables in {}: {}", file, e.getMessage());
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * The first call opens and checks the file, which takes as long as reading it.
+     *
+     * @return Table of the file named by the system property, null if there is none or it can not be read.
+     */
+    public static EquityTable getDefault(){
+        return Default.TABLE;
+    }
+
+    public static EquityTable open(File file) throws IOException {
+        final RandomAccessFile raf = new RandomAccessFile(file, "r");
+        final MappedByteBuffer buffer;
+        try {
+            final FileChannel channel = raf.getChannel();
+            if(channel.size() > Integer.MAX_VALUE){
+                throw new IOException("Table file larger than 2 GB");
+            }
+            // The mapping stays valid after the channel is closed
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } finally {
+            raf.close();
+        }
+        buffer.order(ByteOrder.BIG_ENDIAN);
+
+        if(buffer.limit() < HEADER_BYTES || buffer.getInt(0) != MAGIC){
+            throw new IOException("Not an equity table file");
+        }
+        if(buffer.getInt(4) != VERSION){
+            throw new IOException("Unsupported version "+buffer.getInt(4)+", expected "+VERSION);
+        }
+
+        final long[] offsets = new long[SECTIONS];
+        final boolean[] valid = new boolean[SECTIONS];
+        final int sections = buffer.getInt(8);
+        for(int ix = 0; ix < sections; ++ix){
+            final int entry = HEADER_BYTES + ix*DIRECTORY_ENTRY_BYTES;
+            final int id = buffer.getInt(entry);
+            final long offset = buffer.getLong(entry + 4);
+            final long length = buffer.getLong(entry + 12);
+            if(id <= 0 || id >= SECTIONS || offset < 0 || offset + length > buffer.limit()){
+                continue;
+            }
+            offsets[id] = offset;
+            valid[id] = checksum(buffer, offset, length) == buffer.getInt(entry + 20);
+            if(!valid[id]){
+                log.warn("Equity table section {} is damaged, computing instead", id);
+            }
+        }
+        return new EquityTable(buffer, offsets, valid);
+    }
+
+    /**
+     * @return If the section is in the file and not damaged.
+     */
+    public boolean has(int section){
+        return valid[section];
+    }
+
+    /**
+     * @return Equity of the starting hand class against 1 to 9 random opponents, NaN if not in the file.
+     */
+    public float preflop(int handClass, int opponents){
+        if(!has(PREFLOP)){
+            return Float.NaN;
+        }
+        final int ix = handClass*PreflopTable.MAX_OPPONENTS + opponents-1;
+        return buffer.getFloat((int) offsets[PREFLOP] + 4*ix);
+    }
+
+    /**
+     * @param hole My two cards
+     * @param board 3 or 4 community cards
+     * @return Equity against one random opponent, NaN if not in the file.
+     */
+    public float equity(long hole, long board){
+        final int boardSize = CardSet.size(board);
+        final int section = boardSize == 3 ? FLOP : boardSize == 4 ? TURN : 0;
+        if(section == 0 || !has(section)){
+            return Float.NaN;
+        }
+        final long key = key(hole, board);
+
+        final int base = (int) offsets[section];
+        final int keys = base + KEYS_OFFSET;
+        final int count = buffer.getInt(base);
+        int low = 0;
+        int high = count - 1;
+        while(low <= high){
+            final int mid = (low + high) >>> 1;
+            final long k = buffer.getLong(keys + 8*mid);
+            if(k < key){
+                low = mid + 1;
+            } else if(k > key){
+                high = mid - 1;
+            } else {
+                return buffer.getFloat(keys + 8*count + 4*mid);
+            }
+        }
+        return Float.NaN;
+    }
+
+    /**
+     * The board as 52 bits followed by the hole cards as a HandRange combination in 11 bits,
+     * the smallest such value over all renamings of the suits. Never negative.
+     */
+    public static long key(long hole, long board){
+        long best = Long.MAX_VALUE;
+        for(int[] p : PERMUTATIONS){
+            best = Math.min(best, rawKey(ExactEquity.permute(hole, p), ExactEquity.permute(board, p)));
+        }
+        return best;
+    }
+
+    /**
+     * Key without renaming the suits, equal to @see EquityTable#key(long, long) for the
+     * hand chosen to stand for its class.
+     */
+    static long rawKey(long hole, long board){
+        long compact = 0;
+        for(int s = 0; s < CardSet.SUITS; ++s){
+            compact |= (long) CardSet.suitRanks(board, s) << s*CardSet.RANKS;
+        }
+        return compact << 11 | HandRange.combo(hole);
+    }
+
+    private static int checksum(MappedByteBuffer buffer, long offset, long length){
+        final CRC32 crc = new CRC32();
+        final byte[] chunk = new byte[1 << 16];
+        final ByteBuffer view = buffer.duplicate();
+        view.position((int) offset);
+        for(long left = length; left > 0; ){
+            final int n = (int) Math.min(chunk.length, left);
+            view.get(chunk, 0, n);
+            crc.update(chunk, 0, n);
+            left -= n;
+        }
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,250 @@
+package se.cygni.texasholdem.player;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+
+/**
+ * Builds the file read by @see EquityTable
+ *
+ * Flop and turn equities are computed with @see ExactEquity for one hand of every class
+ * of hands that only differ by renaming the suits. The turn has 13960050 such classes,
+ * about 170 MB and a few hours on one core. The flop has 1286792 classes, about 15 MB,
+ * but every class costs some 30 times as much.
+ *
+ * Usage: EquityTableWriter [output file] [sections, ex preflop,turn] [threads]
+ */
+public class EquityTableWriter {
+
+    /** Boards computed by one task. */
+    private static final int BOARDS_PER_TASK = 256;
+
+    public static void main(String[] args) throws Exception {
+        final String output = args.length > 0 ? args[0] : EquityTable.DEFAULT_FILE;
+        final String sections = args.length > 1 ? args[1] : "preflop,turn";
+        final int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+
+        final long start = System.currentTimeMillis();
+        final List<Integer> ids = new ArrayList<Integer>();
+        final List<ByteBuffer> contents = new ArrayList<ByteBuffer>();
+        if(sections.contains("preflop")){
+            if(!PreflopTable.isLoaded()){
+                throw new IllegalStateException("No preflop table to copy");
+            }
+            final float[] equities = new float[PreflopTable.CLASSES*PreflopTable.MAX_OPPONENTS];
+            for(int ix = 0; ix < PreflopTable.CLASSES; ++ix){
+                for(int op = 1; op <= PreflopTable.MAX_OPPONENTS; ++op){
+                    equities[ix*PreflopTable.MAX_OPPONENTS + op-1] = (float) PreflopTable.equity(ix, op);
+                }
+            }
+            ids.add(EquityTable.PREFLOP);
+            contents.add(preflopSection(equities));
+        }
+        if(sections.contains("flop")){
+            ids.add(EquityTable.FLOP);
+            contents.add(generate(3, threads));
+        }
+        if(sections.contains("turn")){
+            ids.add(EquityTable.TURN);
+            contents.add(generate(4, threads));
+        }
+
+        final int[] idArray = new int[ids.size()];
+        for(int ix = 0; ix < idArray.length; ++ix){
+            idArray[ix] = ids.get(ix);
+        }
+        write(new File(output), idArray, contents.toArray(new ByteBuffer[contents.size()]));
+        System.out.println("Wrote "+output+" in "+(System.currentTimeMillis()-start)/1000+" s");
+    }
+
+    /**
+     * Computes equity of every class of hole cards and boards of the given size.
+     */
+    public static ByteBuffer generate(int boardSize, int threads) throws Exception {
+        final long[] boards = boards(boardSize);
+        final ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            final List<Future<Keyed>> futures = new ArrayList<Future<Keyed>>();
+            for(int from = 0; from < boards.length; from += BOARDS_PER_TASK){
+                final int first = from;
+                final int last = Math.min(boards.length, from + BOARDS_PER_TASK);
+                futures.add(pool.submit(new Callable<Keyed>() {
+                    @Override
+                    public Keyed call() {
+                        return compute(boards, first, last);
+                    }
+                }));
+            }
+
+            // Boards are in increasing order, so the tasks' keys follow each other
+            final Keyed all = new Keyed();
+            for(Future<Keyed> f : futures){
+                all.addAll(f.get());
+            }
+            return keyedSection(all.keys, all.values, all.count);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static Keyed compute(long[] boards, int first, int last){
+        final Keyed keyed = new Keyed();
+        for(int ix = first; ix < last; ++ix){
+            final long board = boards[ix];
+            if(!smallestBoard(board)){
+                // Some renaming of the suits gives a smaller key for every hole
+                continue;
+            }
+            for(int c = 0; c < HandRange.COMBOS; ++c){
+                final long hole = HandRange.cards(c);
+                if((hole & board) != 0){
+                    continue;
+                }
+                final long key = EquityTable.rawKey(hole, board);
+                if(key == EquityTable.key(hole, board)){
+                    keyed.add(key, (float) ExactEquity.compute(hole, board).getEquity());
+                }
+            }
+        }
+        return keyed;
+    }
+
+    private static boolean smallestBoard(long board){
+        final long key = EquityTable.rawKey(HandRange.cards(0), board) >>> 11;
+        for(int[] p : ExactEquity.permutations()){
+            if(EquityTable.rawKey(HandRange.cards(0), ExactEquity.permute(board, p)) >>> 11 < key){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return All CardSets of the given size, in increasing order of their key.
+     */
+    static long[] boards(int size){
+        final List<Long> result = new ArrayList<Long>();
+        final int[] cards = new int[size];
+        for(int ix = 0; ix < size; ++ix){
+            cards[ix] = ix;
+        }
+        // Compact card numbers suit*13 + rank, the last card varying slowest
+        while(cards[size-1] < 52){
+            long board = CardSet.EMPTY;
+            for(int card : cards){
+                board |= CardSet.of(card % CardSet.RANKS, card / CardSet.RANKS);
+            }
+            result.add(board);
+
+            int ix = 0;
+            while(ix < size-1 && cards[ix]+1 == cards[ix+1]){
+                cards[ix] = ix;
+                ++ix;
+            }
+            ++cards[ix];
+        }
+        final long[] boards = new long[result.size()];
+        for(int ix = 0; ix < boards.length; ++ix){
+            boards[ix] = result.get(ix);
+        }
+        return boards;
+    }
+
+    public static ByteBuffer preflopSection(float[] equities){
+        final ByteBuffer section = ByteBuffer.allocate(4*equities.length);
+        for(float e : equities){
+            section.putFloat(e);
+        }
+        section.flip();
+        return section;
+    }
+
+    /**
+     * @param keys Strictly increasing keys, @see EquityTable#key(long, long)
+     */
+    public static ByteBuffer keyedSection(long[] keys, float[] values, int count){
+        final ByteBuffer section = ByteBuffer.allocate(EquityTable.KEYS_OFFSET + 12*count);
+        section.putInt(count);
+        section.putInt(0);
+        for(int ix = 0; ix < count; ++ix){
+            if(ix > 0 && keys[ix] <= keys[ix-1]){
+                throw new IllegalArgumentException("Keys not increasing at "+ix);
+            }
+            section.putLong(keys[ix]);
+        }
+        for(int ix = 0; ix < count; ++ix){
+            section.putFloat(values[ix]);
+        }
+        section.flip();
+        return section;
+    }
+
+    public static void write(File file, int[] ids, ByteBuffer[] sections) throws IOException {
+        final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+        try {
+            out.writeInt(EquityTable.MAGIC);
+            out.writeInt(EquityTable.VERSION);
+            out.writeInt(ids.length);
+            long offset = EquityTable.HEADER_BYTES + ids.length*EquityTable.DIRECTORY_ENTRY_BYTES;
+            for(int ix = 0; ix < ids.length; ++ix){
+                final CRC32 crc = new CRC32();
+                crc.update(sections[ix].array(), 0, sections[ix].limit());
+                out.writeInt(ids[ix]);
+                out.writeLong(offset);
+                out.writeLong(sections[ix].limit());
+                out.writeInt((int) crc.getValue());
+                offset += sections[ix].limit();
+            }
+            for(ByteBuffer section : sections){
+                out.write(section.array(), 0, section.limit());
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Growing arrays of keys and their equities.
+     */
+    private static class Keyed {
+        long[] keys = new long[1024];
+        float[] values = new float[1024];
+        int count = 0;
+
+        void add(long key, float value){
+            if(count == keys.length){
+                grow(2*count);
+            }
+            keys[count] = key;
+            values[count++] = value;
+        }
+
+        void addAll(Keyed other){
+            if(count + other.count > keys.length){
+                grow(Math.max(2*keys.length, count + other.count));
+            }
+            System.arraycopy(other.keys, 0, keys, count, other.count);
+            System.arraycopy(other.values, 0, values, count, other.count);
+            count += other.count;
+        }
+
+        private void grow(int size){
+            final long[] k = new long[size];
+            final float[] v = new float[size];
+            System.arraycopy(keys, 0, k, 0, count);
+            System.arraycopy(values, 0, v, 0, count);
+            keys = k;
+            values = v;
+        }
+    }
+}
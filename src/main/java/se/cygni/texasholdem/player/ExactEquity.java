@@ -0,0 +1,134 @@
+package se.cygni.texasholdem.player;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Exact equity against one opponent holding any two unknown cards,
+ * found by enumerating every remaining board and every opponent hand.
+ *
+ * Meant for the turn (46 boards times 990 opponent hands) and the river (1081 opponent hands),
+ * but works from the flop as well at roughly 20 times the cost of the turn.
+ *
+ * Suits that are indistinguishable in the known cards give the same result,
+ * so only one board of each such suit permutation is enumerated and it is weighted by
+ * the number of boards it stands for.
+ */
+public class ExactEquity {
+
+    private static final int[][] ALL_PERMUTATIONS = permutations();
+
+    private ExactEquity(){}
+
+    /**
+     * @param hole My two cards
+     * @param board Community cards, 3 to 5 of them
+     * @return Exact win/tie/loss fractions against one uniform opponent.
+     */
+    public static Equity compute(long hole, long board){
+        final long dead = hole | board;
+        final int[] live = liveCards(dead);
+        final int missing = 5 - CardSet.size(board);
+        final int[][] symmetries = symmetries(hole, board);
+
+        final long[] counts = new long[3];
+        enumerateBoards(hole, board, live, 0, missing, symmetries, counts);
+
+        final double total = counts[0] + counts[1] + counts[2];
+        return new Equity(counts[0] / total, counts[1] / total, counts[2] / total);
+    }
+
+    private static void enumerateBoards(long hole, long board, int[] live, int from, int missing,
+                                        int[][] symmetries, long[] counts){
+        if(missing > 0){
+            for(int ix = from; ix < live.length; ++ix){
+                enumerateBoards(hole, board | 1L << live[ix], live, ix+1, missing-1, symmetries, counts);
+            }
+            return;
+        }
+
+        int stabilizers = 0;
+        for(int[] p : symmetries){
+            final long image = permute(board, p);
+            if(image < board){
+                // Another board of this suit permutation is the one enumerated.
+                return;
+            }
+            if(image == board){
+                ++stabilizers;
+            }
+        }
+        final long weight = symmetries.length / stabilizers;
+
+        final int mine = HandEvaluator.evaluate(hole | board);
+        final long used = hole | board;
+        long win = 0;
+        long tie = 0;
+        long loss = 0;
+        for(int i = 0; i < live.length; ++i){
+            final long a = 1L << live[i];
+            if((used & a) != 0){
+                continue;
+            }
+            for(int j = i+1; j < live.length; ++j){
+                final long b = 1L << live[j];
+                if((used & b) != 0){
+                    continue;
+                }
+                final int theirs = HandEvaluator.evaluate(board | a | b);
+                if(mine > theirs){
+                    ++win;
+                } else if(mine == theirs){
+                    ++tie;
+                } else {
+                    ++loss;
+                }
+            }
+        }
+        counts[0] += weight * win;
+        counts[1] += weight * tie;
+        counts[2] += weight * loss;
+    }
+
+    /**
+     * @return Suit permutations that leave both hole and board unchanged.
+     */
+    private static int[][] symmetries(long hole, long board){
+        final List<int[]> result = new ArrayList<int[]>();
+        for(int[] p : ALL_PERMUTATIONS){
+            if(permute(hole, p) == hole && permute(board, p) == board){
+                result.add(p);
+            }
+        }
+        return result.toArray(new int[result.size()][]);
+    }
+
+    static long permute(long cards, int[] suitPermutation){
+        long result = CardSet.EMPTY;
+        for(int s = 0; s < CardSet.SUITS; ++s){
+            result |= (long) CardSet.suitRanks(cards, s) << suitPermutation[s]*CardSet.LANE;
+        }
+        return result;
+    }
+
+    static int[] liveCards(long dead){
+        final int[] live = new int[52 - CardSet.size(dead)];
+        int n = 0;
+        for(long rest = CardSet.FULL_DECK & ~dead; rest != 0; rest &= rest-1){
+            live[n++] = Long.numberOfTrailingZeros(rest);
+        }
+        return live;
+    }
+
+    static int[][] permutations(){
+        final List<int[]> result = new ArrayList<int[]>(24);
+        for(int a = 0; a < 4; ++a)
+            for(int b = 0; b < 4; ++b)
+                for(int c = 0; c < 4; ++c)
+                    for(int d = 0; d < 4; ++d)
+                        if(a != b && a != c && a != d && b != c && b != d && c != d){
+                            result.add(new int[]{a, b, c, d});
+                        }
+        return result.toArray(new int[result.size()][]);
+    }
+}
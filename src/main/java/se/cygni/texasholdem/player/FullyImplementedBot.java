@@ -12,10 +12,11 @@ import se.cygni.texasholdem.game.PlayerShowDown;
 import se.cygni.texasholdem.game.Room;
 import se.cygni.texasholdem.game.definitions.PlayState;
 import se.cygni.texasholdem.game.definitions.PokerHand;
-import se.cygni.texasholdem.game.definitions.Rank;
 
 import java.util.Formatter;
-import java.util.List;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /*
  * First victory!
@@ -44,13 +45,33 @@ public class FullyImplementedBot implements Player {
     private static Logger log = LoggerFactory
             .getLogger(FullyImplementedBot.class);
 
+    private final String name;
     private final String serverHost;
     private final int serverPort;
+    /** Null when playing at a @see LocalTable */
     private final PlayerClient playerClient;
+    private final TableView table;
 
     private PlayState currentState = null;
+    private final HandState hand = new HandState();
+    private int opponentsFolded = 0;
     private double chance = 0.0;
+    /** Chance is exact equity against one opponent, from the equity tables or counted. */
+    private boolean chanceIsExact = false;
+
+    /** Hands each opponent may hold, narrowed as they call, raise and go all in. */
+    private final Map<String, HandRange> ranges = new HashMap<String, HandRange>();
+    private static final double CALL_KEEP = 0.7;
+    private static final double RAISE_KEEP = 0.4;
+    private static final double ALL_IN_KEEP = 0.2;
+
+    /**
+     * Time the bot may spend thinking on an action, well within the time limit of the server.
+     * Going over the server's limit means a forced fold.
+     */
+    private static final long ACTION_TIME_BUDGET_MILLIS = 300;
     private boolean someoneWentAllIn = false;
+    private String allInPlayer = null;
     private boolean pleasePrintStrategy = true;
     private int gameRound = 0;
 
@@ -61,11 +82,58 @@ public class FullyImplementedBot implements Player {
      * @param serverPort port at which the poker server listens
      */
     public FullyImplementedBot(String serverHost, int serverPort) {
+        this.name = "HalfLeif";
         this.serverHost = serverHost;
         this.serverPort = serverPort;
 
         // Initialize the player client
         playerClient = new PlayerClient(this, serverHost, serverPort);
+        table = new TableView() {
+            @Override
+            public int getNumberOfPlayers() {
+                return playerClient.getCurrentPlayState().getNumberOfPlayers();
+            }
+
+            @Override
+            public long getMyCurrentChipAmount() {
+                return playerClient.getCurrentPlayState().getMyCurrentChipAmount();
+            }
+
+            @Override
+            public long getTableId() {
+                return playerClient.getCurrentPlayState().getTableId();
+            }
+
+            @Override
+            public long getPotTotal() {
+                return playerClient.getCurrentPlayState().getPotTotal();
+            }
+        };
+        loadTables();
+    }
+
+    /**
+     * A bot playing offline, seated at the table.
+     *
+     * @param name Unique at the table
+     */
+    public FullyImplementedBot(String name, LocalTable localTable) {
+        this.name = name;
+        this.serverHost = null;
+        this.serverPort = 0;
+        this.playerClient = null;
+        this.table = localTable.seat(this);
+        loadTables();
+    }
+
+    private static void loadTables(){
+        // Loads the tables and checks their sections now, rather than while the first action is timed
+        if(!PreflopTable.isLoaded()){
+            log.info("No preflop table found, using Scoring before the flop");
+        }
+        if(EquityTable.getDefault() == null){
+            log.info("No equity tables in {}, computing flop and turn equity", System.getProperty(EquityTable.PROPERTY, EquityTable.DEFAULT_FILE));
+        }
     }
 
     public void playATrainingGame() throws Exception {
@@ -99,7 +167,7 @@ public class FullyImplementedBot implements Player {
      */
     @Override
     public String getName() {
-        return "HalfLeif";
+        return name;
     }
 
     /**
@@ -128,7 +196,8 @@ public class FullyImplementedBot implements Player {
     @Override
     public Action actionRequired(ActionRequest request) {
 
-        Action response = getBestAction(request);
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(ACTION_TIME_BUDGET_MILLIS);
+        Action response = getBestAction(request, deadline);
         log.info("I'll {} {}",
                 response.getActionType(),
                 response.getAmount() > 0 ? "with " + response.getAmount() : "");
@@ -137,20 +206,102 @@ public class FullyImplementedBot implements Player {
     }
 
     private void updateChance(){
-        final CurrentPlayState playState = playerClient.getCurrentPlayState();
-        this.chance = Scoring.chanceOfWinning(playState.getMyCardsAndCommunityCards(), playState.getCommunityCards());
+        final long hole = hand.getHole();
+
+        if(hand.getBoardSize() == 0 && hand.getHoleSize() == 2 && PreflopTable.isLoaded()){
+            final int numPlayers = table.getNumberOfPlayers();
+            final int opponents = Math.min(Math.max(numPlayers - 1, 1), PreflopTable.MAX_OPPONENTS);
+            this.chance = headsUpScale(PreflopTable.equity(hole, opponents), opponents);
+            return;
+        }
+
+        this.chanceIsExact = true;
+        final EquityTable table = EquityTable.getDefault();
+        if(table != null && hand.getHoleSize() == 2){
+            final float equity = table.equity(hole, hand.getBoard());
+            if(!Float.isNaN(equity)){
+                this.chance = equity;
+                return;
+            }
+        }
+
+        // From the turn there are few enough outcomes left to count them all.
+        if(hand.getBoardSize() >= 4){
+            this.chance = ExactEquity.compute(hole, hand.getBoard()).getEquity();
+            return;
+        }
+        this.chanceIsExact = false;
+        this.chance = Scoring.chanceOfWinning(hand.getMine(), hand.getCommunity());
+    }
+
+    /**
+     * Replaces the estimate made when the last card was dealt with equity against
+     * all opponents still in the hand, using the time left until the deadline.
+     */
+    private void refineChance(int opponents, long deadline){
+        if(hand.getBoardSize() == 0){
+            if(PreflopTable.isLoaded()){
+                final int tableOpponents = Math.min(opponents, PreflopTable.MAX_OPPONENTS);
+                this.chance = headsUpScale(PreflopTable.equity(hand.getHole(), tableOpponents), tableOpponents);
+            }
+            return;
+        }
+        final EquityEstimate equity = AnytimeEquity.estimate(hand.getHole(), hand.getBoard(), opponents, deadline);
+        if(this.pleasePrintStrategy){
+            log.info("Against {} opponents: {}", opponents, equity);
+        }
+        this.chance = headsUpScale(equity.getEquity(), opponents);
+    }
+
+    private int liveOpponents(){
+        return Math.max(1, table.getNumberOfPlayers() - 1 - opponentsFolded);
+    }
+
+    private void newHand(){
+        hand.reset();
+        opponentsFolded = 0;
+        for(HandRange range : ranges.values()){
+            range.reset();
+        }
+    }
+
+    private HandRange range(String name){
+        HandRange range = ranges.get(name);
+        if(range == null){
+            range = new HandRange();
+            ranges.put(name, range);
+        }
+        return range;
+    }
+
+    private void narrowRange(String name, double keep){
+        if(!getName().equals(name)){
+            range(name).narrow(hand.getBoard(), keep);
+        }
+    }
+
+    /**
+     * Rescales equity against several opponents so that a fair share of the pot maps to 0.5,
+     * as it does against a single opponent. The thresholds in getBestAction are in this scale.
+     */
+    private static double headsUpScale(double equity, int opponents){
+        return Math.min(1.0, equity * (opponents + 1) / 2.0);
     }
 
     /**
      * The best action
+     *
+     * @param deadline Value of System.nanoTime() at which the action must be decided.
      */
-    private Action getBestAction(ActionRequest request) {
+    private Action getBestAction(ActionRequest request, long deadline) {
 
         final ActionsAvailable actionsAvailable = new ActionsAvailable(request);
-        final CurrentPlayState playState = playerClient.getCurrentPlayState();
-
-        final int numPlayers = playState.getNumberOfPlayers();
-        final boolean onlyTwoPlayers = numPlayers < 3;
+        final int opponents = liveOpponents();
+        final boolean onlyTwoPlayers = opponents < 2;
+        // Heads up from the turn, or from the flop with equity tables, the chance is already exact.
+        if(!onlyTwoPlayers || (hand.getBoardSize() == 3 && !chanceIsExact)){
+            refineChance(opponents, deadline);
+        }
 
         if(this.pleasePrintStrategy){
             log.info("# "+currentState.getName());
@@ -158,7 +309,14 @@ public class FullyImplementedBot implements Player {
         }
 
         if(someoneWentAllIn){
-            if(chance > 0.72) {
+            final double allInEquity = allInEquity(opponents);
+            final long toCall = toCall(actionsAvailable);
+            final double potOdds = potOdds(toCall, table.getPotTotal());
+            if(this.pleasePrintStrategy){
+                log.info("Equity against the range of {} and {} opponents: {}, {} to call needs {}",
+                        allInPlayer, opponents, allInEquity, toCall, potOdds);
+            }
+            if(allInEquity > potOdds) {
                 log.info("Someone went ALL IN, but I'm still confident!");
                 return stayInGame(actionsAvailable);
             } else {
@@ -168,18 +326,15 @@ public class FullyImplementedBot implements Player {
         }
 
         if(currentState.equals(PlayState.PRE_FLOP)){
-            List<Card> cards = playState.getMyCards();
-            final boolean worth = worthKeeping(cards.get(0), cards.get(1));
-
             if(onlyTwoPlayers){
-                if(worth || chance > 0.49){
+                if(chance > 0.49){
                     return stayInGame(actionsAvailable);
                 } else {
                     return justFold(actionsAvailable);
                 }
             }
 
-            if(chance > 0.51 || (worth && chance > 0.48) ){
+            if(chance > 0.51){
                 return stayInGame(actionsAvailable);
             } else {
                 return justFold(actionsAvailable);
@@ -225,14 +380,46 @@ public class FullyImplementedBot implements Player {
         return keepRaising(actionsAvailable);
     }
 
+    /**
+     * Equity against the range of the player that went all in. With other opponents still in
+     * the hand it must also beat them, each taken as independent and as strong as one of the
+     * live opponents in the estimate against all of them.
+     */
+    private double allInEquity(int opponents){
+        final double rangeEquity = RangeEquity.compute(hand.getHole(), hand.getBoard(), range(allInPlayer)).getEquity();
+        if(opponents < 2){
+            return rangeEquity;
+        }
+        // Undoes headsUpScale, the estimate is the chance of beating all of them
+        final double againstAll = Math.min(1.0, chance * 2.0 / (opponents + 1));
+        return rangeEquity * Math.pow(againstAll, (opponents - 1) / (double) opponents);
+    }
+
+    /**
+     * Chips needed to stay in, all of them when they do not cover the call.
+     */
+    private static long toCall(ActionsAvailable available){
+        if(available.checkAction != null){
+            return 0;
+        }
+        if(available.callAction != null){
+            return available.callAction.getAmount();
+        }
+        return available.allInAction == null ? 0 : available.allInAction.getAmount();
+    }
+
+    /**
+     * Equity at which calling breaks even: the call against the pot it wins, the call included.
+     *
+     * @param pot Chips in the pot before the call.
+     */
+    private static double potOdds(long toCall, long pot){
+        return toCall <= 0 ? 0.0 : toCall / (double) (pot + toCall);
+    }
+
     private Action justFold(ActionsAvailable available){
-        final CurrentPlayState playState = playerClient.getCurrentPlayState();
         if(this.pleasePrintStrategy){
-            StringBuilder s = new StringBuilder();
-            for(Card c : playState.getMyCards()){
-                s.append(c.toShortString()+", ");
-            }
-            log.info("Quick exit, got: "+s);
+            log.info("Quick exit, got: "+CardSet.toString(hand.getHole()));
             this.pleasePrintStrategy = false;
         }
 
@@ -285,16 +472,6 @@ public class FullyImplementedBot implements Player {
         return available.allInAction;
     }
 
-    private boolean worthKeeping(Card a, Card b){
-        if(a.getRank() == b.getRank()){
-            return true;
-        }
-        if(a.getSuit() == b.getSuit()){
-            return true;
-        }
-        return a.getRank().getOrderValue() > Rank.NINE.getOrderValue() || b.getRank().ordinal() > Rank.NINE.getOrderValue() ;
-    }
-
     private class ActionsAvailable {
         private Action callAction = null;
         private Action checkAction = null;
@@ -355,12 +532,14 @@ public class FullyImplementedBot implements Player {
     @Override
     public void onPlayIsStarted(final PlayIsStartedEvent event) {
         log.debug("Play is started");
+        newHand();
     }
 
     @Override
     public void onTableChangedStateEvent(TableChangedStateEvent event) {
         this.currentState = event.getState();
         this.someoneWentAllIn = false;
+        this.allInPlayer = null;
         this.pleasePrintStrategy = true;
 
         log.debug("Table changed state: {}", event.getState());
@@ -370,6 +549,11 @@ public class FullyImplementedBot implements Player {
     public void onYouHaveBeenDealtACard(final YouHaveBeenDealtACardEvent event) {
 
         log.debug("I, {}, got a card: {}", getName(), event.getCard());
+        if(hand.getHoleSize() == 2){
+            // Still holding the cards of the previous hand
+            newHand();
+        }
+        hand.dealtToMe(event.getCard());
         updateChance();
     }
 
@@ -378,6 +562,7 @@ public class FullyImplementedBot implements Player {
             final CommunityHasBeenDealtACardEvent event) {
 
         log.debug("Community got a card: {}", event.getCard());
+        hand.dealtToCommunity(event.getCard());
         updateChance();
     }
 
@@ -397,36 +582,52 @@ public class FullyImplementedBot implements Player {
     public void onPlayerFolded(final PlayerFoldedEvent event) {
 
         log.debug("{} folded after putting {} in the pot", event.getPlayer().getName(), event.getInvestmentInPot());
+        opponentFolded(event.getPlayer().getName());
     }
 
     @Override
     public void onPlayerForcedFolded(PlayerForcedFoldedEvent event) {
 
         log.info("NOT GOOD! {} was forced to fold after putting {} in the pot because exceeding the time limit", event.getPlayer().getName(), event.getInvestmentInPot());
+        opponentFolded(event.getPlayer().getName());
+    }
+
+    private void opponentFolded(String name){
+        if(!getName().equals(name)){
+            opponentsFolded++;
+        }
     }
 
     @Override
     public void onPlayerCalled(final PlayerCalledEvent event) {
 
         log.debug("{} called with amount {}", event.getPlayer().getName(), event.getCallBet());
+        narrowRange(event.getPlayer().getName(), CALL_KEEP);
     }
 
     @Override
     public void onPlayerRaised(final PlayerRaisedEvent event) {
 
         log.debug("{} raised with bet {}", event.getPlayer().getName(), event.getRaiseBet());
+        narrowRange(event.getPlayer().getName(), RAISE_KEEP);
     }
 
     @Override
     public void onTableIsDone(TableIsDoneEvent event) {
 
-        log.debug("Table is done, I'm leaving the table with ${}", playerClient.getCurrentPlayState().getMyCurrentChipAmount());
-        log.info("Ending poker session, the last game may be viewed at: http://{}/showgame/table/{}", serverHost, playerClient.getCurrentPlayState().getTableId());
+        log.debug("Table is done, I'm leaving the table with ${}", table.getMyCurrentChipAmount());
+        if(playerClient != null){
+            log.info("Ending poker session, the last game may be viewed at: http://{}/showgame/table/{}", serverHost, table.getTableId());
+        }
     }
 
     @Override
     public void onPlayerWentAllIn(final PlayerWentAllInEvent event) {
-        this.someoneWentAllIn = true;
+        if(!getName().equals(event.getPlayer().getName())){
+            this.someoneWentAllIn = true;
+            this.allInPlayer = event.getPlayer().getName();
+            narrowRange(allInPlayer, ALL_IN_KEEP);
+        }
         log.info("{} went all in with amount {}", event.getPlayer().getName(), event.getAllInAmount());
     }
 
@@ -0,0 +1,199 @@
+package se.cygni.texasholdem.player;
+
+import se.cygni.texasholdem.game.Card;
+import se.cygni.texasholdem.game.definitions.PokerHand;
+import se.cygni.texasholdem.game.definitions.Rank;
+
+import java.util.List;
+
+/**
+ * Evaluates the best poker hand of 5 to 7 cards given as a CardSet.
+ *
+ * The result is a hand strength that fits in 16 bits: the category in the upper bits
+ * and the ranks deciding within the category (including kickers) in the lower 12 bits.
+ * A higher strength is a better hand, equal strength is a split pot.
+ *
+ * Multiplicity of every rank is found with bitwise operations on the four suit lanes,
+ * after which only a few table lookups are needed. Nothing is allocated.
+ */
+public final class HandEvaluator {
+
+    public static final int HIGH_HAND = 1;
+    public static final int ONE_PAIR = 2;
+    public static final int TWO_PAIRS = 3;
+    public static final int THREE_OF_A_KIND = 4;
+    public static final int STRAIGHT = 5;
+    public static final int FLUSH = 6;
+    public static final int FULL_HOUSE = 7;
+    public static final int FOUR_OF_A_KIND = 8;
+    public static final int STRAIGHT_FLUSH = 9;
+
+    private static final int CATEGORY_SHIFT = 12;
+    private static final int RANKS = CardSet.RANKS;
+    private static final int MASKS = 1 << RANKS;
+
+    /** Number of 2 and 3 element subsets of the ranks. */
+    private static final int PAIRS_OF_RANKS = 78;
+    private static final int TRIPLES_OF_RANKS = 286;
+
+    /** Highest rank + 1 of the best straight within every rank mask, 0 if none. */
+    private static final byte[] STRAIGHT_TOP = new byte[MASKS];
+
+    /** Index of every rank mask among the masks with equal bit count, in increasing order. */
+    private static final short[] COLEX = new short[MASKS];
+
+    private static final PokerHand[] POKER_HANDS = {
+            PokerHand.NOTHING,
+            PokerHand.HIGH_HAND,
+            PokerHand.ONE_PAIR,
+            PokerHand.TWO_PAIRS,
+            PokerHand.THREE_OF_A_KIND,
+            PokerHand.STRAIGHT,
+            PokerHand.FLUSH,
+            PokerHand.FULL_HOUSE,
+            PokerHand.FOUR_OF_A_KIND,
+            PokerHand.STRAIGHT_FLUSH,
+    };
+
+    static {
+        final int wheel = 0x100F; // A, 2, 3, 4, 5
+        final int[] seen = new int[RANKS+1];
+        for(int mask = 0; mask < MASKS; ++mask){
+            COLEX[mask] = (short) seen[Integer.bitCount(mask)]++;
+
+            for(int top = RANKS-1; top >= 4; --top){
+                final int straight = 0x1F << (top-4);
+                if((mask & straight) == straight){
+                    STRAIGHT_TOP[mask] = (byte) (top+1);
+                    break;
+                }
+            }
+            if(STRAIGHT_TOP[mask] == 0 && (mask & wheel) == wheel){
+                STRAIGHT_TOP[mask] = (byte) (Rank.FIVE.ordinal()+1);
+            }
+        }
+    }
+
+    private HandEvaluator(){}
+
+    public static int evaluate(List<Card> cards){
+        return evaluate(CardSet.of(cards));
+    }
+
+    /**
+     * @param cards 5 to 7 cards
+     * @return Hand strength, higher is better.
+     */
+    public static int evaluate(long cards){
+        final int c = CardSet.suitRanks(cards, 0);
+        final int d = CardSet.suitRanks(cards, 1);
+        final int h = CardSet.suitRanks(cards, 2);
+        final int s = CardSet.suitRanks(cards, 3);
+
+        // With at most 7 cards a flush rules out both four of a kind and full house.
+        int flush = 0;
+        if(Integer.bitCount(c) >= 5){
+            flush = c;
+        } else if(Integer.bitCount(d) >= 5){
+            flush = d;
+        } else if(Integer.bitCount(h) >= 5){
+            flush = h;
+        } else if(Integer.bitCount(s) >= 5){
+            flush = s;
+        }
+        if(flush != 0){
+            final int top = STRAIGHT_TOP[flush];
+            if(top != 0){
+                return strength(STRAIGHT_FLUSH, top-1);
+            }
+            return strength(FLUSH, COLEX[keepHighest(flush, 5)]);
+        }
+
+        final int any = c | d | h | s;
+        final int two = (c & d) | (h & s) | ((c | d) & (h | s));
+        final int three = (c & d & (h | s)) | (h & s & (c | d));
+        final int four = c & d & h & s;
+
+        if(four != 0){
+            final int quad = highest(four);
+            return strength(FOUR_OF_A_KIND, quad*RANKS + highest(any & ~four));
+        }
+        if(three != 0){
+            final int trips = highest(three);
+            final int pairs = two & ~(1 << trips);
+            if(pairs != 0){
+                return strength(FULL_HOUSE, trips*RANKS + highest(pairs));
+            }
+        }
+        final int top = STRAIGHT_TOP[any];
+        if(top != 0){
+            return strength(STRAIGHT, top-1);
+        }
+        if(three != 0){
+            final int trips = highest(three);
+            return strength(THREE_OF_A_KIND, trips*PAIRS_OF_RANKS + COLEX[keepHighest(any & ~three, 2)]);
+        }
+        if(Integer.bitCount(two) >= 2){
+            final int pairs = keepHighest(two, 2);
+            return strength(TWO_PAIRS, COLEX[pairs]*RANKS + highest(any & ~pairs));
+        }
+        if(two != 0){
+            return strength(ONE_PAIR, highest(two)*TRIPLES_OF_RANKS + COLEX[keepHighest(any & ~two, 3)]);
+        }
+        return strength(HIGH_HAND, COLEX[keepHighest(any, 5)]);
+    }
+
+    /**
+     * Evaluates a batch of hands, out[i] = evaluate(cards[i]).
+     * Cards and strengths are kept in primitive arrays so the loop runs without
+     * allocation or indirection, callers reuse the arrays between batches.
+     *
+     * @param cards 5 to 7 cards in each CardSet
+     * @param out Receives the hand strengths
+     * @param count Number of hands to evaluate
+     */
+    public static void evaluate(long[] cards, int[] out, int count){
+        for(int ix = 0; ix < count; ++ix){
+            out[ix] = evaluate(cards[ix]);
+        }
+    }
+
+    /**
+     * Evaluates a batch of hands sharing the same community cards, out[i] = evaluate(board | holes[i]).
+     */
+    public static void evaluate(long board, long[] holes, int[] out, int count){
+        for(int ix = 0; ix < count; ++ix){
+            out[ix] = evaluate(board | holes[ix]);
+        }
+    }
+
+    /**
+     * @return One of the category constants, ex HandEvaluator#FLUSH
+     */
+    public static int category(int strength){
+        return strength >>> CATEGORY_SHIFT;
+    }
+
+    public static PokerHand pokerHand(int strength){
+        final int category = category(strength);
+        if(category == STRAIGHT_FLUSH && (strength & 0xFFF) == Rank.ACE.ordinal()){
+            return PokerHand.ROYAL_FLUSH;
+        }
+        return POKER_HANDS[category];
+    }
+
+    private static int strength(int category, int ranks){
+        return category << CATEGORY_SHIFT | ranks;
+    }
+
+    private static int highest(int mask){
+        return 31 - Integer.numberOfLeadingZeros(mask);
+    }
+
+    private static int keepHighest(int mask, int n){
+        while(Integer.bitCount(mask) > n){
+            mask &= mask-1;
+        }
+        return mask;
+    }
+}
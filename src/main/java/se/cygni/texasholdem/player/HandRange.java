@@ -0,0 +1,126 @@
+package se.cygni.texasholdem.player;
+
+import java.util.Arrays;
+
+/**
+ * The hands an opponent may be holding: a weight for each of the 1326 combinations
+ * of two cards. A new range is uniform, it is narrowed as the opponent acts.
+ */
+public class HandRange {
+
+    public static final int COMBOS = 1326;
+
+    /** Weight left on hands outside the part of the range that is kept, ie bluffs. */
+    private static final double RESIDUAL = 0.1;
+
+    private static final long[] COMBO_CARDS = new long[COMBOS];
+    static {
+        final int[] deck = ExactEquity.liveCards(CardSet.EMPTY);
+        int combo = 0;
+        for(int i = 0; i < deck.length; ++i){
+            for(int j = i+1; j < deck.length; ++j){
+                COMBO_CARDS[combo++] = 1L << deck[i] | 1L << deck[j];
+            }
+        }
+    }
+
+    private final double[] weights = new double[COMBOS];
+
+    public HandRange(){
+        reset();
+    }
+
+    /**
+     * @return The two cards of the combination as a CardSet.
+     */
+    public static long cards(int combo){
+        return COMBO_CARDS[combo];
+    }
+
+    /**
+     * @return Combination of the two cards in the CardSet.
+     */
+    public static int combo(long twoCards){
+        // Position of the card among the 52, suit by suit
+        final int low = Long.numberOfTrailingZeros(twoCards);
+        final int high = 63 - Long.numberOfLeadingZeros(twoCards);
+        final int i = CardSet.suitOf(low)*CardSet.RANKS + CardSet.rankOf(low);
+        final int j = CardSet.suitOf(high)*CardSet.RANKS + CardSet.rankOf(high);
+        // Combinations starting with a lower first card come before
+        return i*(2*52 - i - 1)/2 + (j - i - 1);
+    }
+
+    /**
+     * Back to all hands equally likely.
+     */
+    public void reset(){
+        Arrays.fill(weights, 1.0);
+    }
+
+    public double getWeight(int combo){
+        return weights[combo];
+    }
+
+    public void setWeight(int combo, double weight){
+        weights[combo] = weight;
+    }
+
+    /**
+     * @return Sum of the weights of hands not using any of the dead cards.
+     */
+    public double totalWeight(long dead){
+        double total = 0.0;
+        for(int c = 0; c < COMBOS; ++c){
+            if((COMBO_CARDS[c] & dead) == 0){
+                total += weights[c];
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Keeps the strongest hands making up the given part of the weight,
+     * the rest keep only a small part of their weight.
+     * Before the flop hands are ranked by preflop equity, after by made hand with the board.
+     *
+     * @param board Community cards so far
+     * @param keep Part of the range to keep, between 0 and 1
+     */
+    public void narrow(long board, double keep){
+        final long[] ranked = new long[COMBOS];
+        int n = 0;
+        double total = 0.0;
+        for(int c = 0; c < COMBOS; ++c){
+            final long cards = COMBO_CARDS[c];
+            if((cards & board) != 0 || weights[c] == 0.0){
+                continue;
+            }
+            ranked[n++] = (long) strength(cards, board) << 16 | c;
+            total += weights[c];
+        }
+        Arrays.sort(ranked, 0, n);
+
+        // Strongest hands last
+        double kept = 0.0;
+        for(int ix = n-1; ix >= 0; --ix){
+            final int c = (int) (ranked[ix] & 0xFFFF);
+            if(kept < keep * total){
+                kept += weights[c];
+            } else {
+                weights[c] *= RESIDUAL;
+            }
+        }
+    }
+
+    private static int strength(long cards, long board){
+        if(CardSet.size(board) < 3 && PreflopTable.isLoaded()){
+            return (int) (PreflopTable.equity(cards, 1) * 1e6);
+        }
+        if(CardSet.size(board) < 3){
+            // No table, pairs first then by high cards
+            final int ranks = CardSet.ranks(cards);
+            return (Integer.bitCount(ranks) == 1 ? 1 << CardSet.RANKS : 0) | ranks;
+        }
+        return HandEvaluator.evaluate(cards | board);
+    }
+}
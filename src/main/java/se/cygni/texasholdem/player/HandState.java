@@ -0,0 +1,77 @@
+package se.cygni.texasholdem.player;
+
+import se.cygni.texasholdem.game.Card;
+
+/**
+ * The cards known to me in the current hand, updated one card at a time
+ * as the bot is told about them.
+ *
+ * Keeps the running counts Scoring needs for both my cards and the community cards,
+ * so nothing has to be recounted when a card is dealt.
+ */
+public class HandState {
+
+    private long hole = CardSet.EMPTY;
+    private long board = CardSet.EMPTY;
+
+    private final Scoring.CardCounter mine = new Scoring.CardCounter();
+    private final Scoring.CardCounter community = new Scoring.CardCounter();
+
+    /**
+     * Forgets all cards, call when a new hand starts.
+     */
+    public void reset(){
+        hole = CardSet.EMPTY;
+        board = CardSet.EMPTY;
+        mine.reset();
+        community.reset();
+    }
+
+    public void dealtToMe(Card c){
+        final int ix = CardSet.index(c);
+        hole |= 1L << ix;
+        mine.add(ix);
+    }
+
+    public void dealtToCommunity(Card c){
+        final int ix = CardSet.index(c);
+        board |= 1L << ix;
+        mine.add(ix);
+        community.add(ix);
+    }
+
+    public long getHole(){
+        return hole;
+    }
+
+    public long getBoard(){
+        return board;
+    }
+
+    public int getHoleSize(){
+        return CardSet.size(hole);
+    }
+
+    public int getBoardSize(){
+        return CardSet.size(board);
+    }
+
+    /**
+     * @return Counts of my cards and the community cards.
+     */
+    public Scoring.CardCounter getMine(){
+        return mine;
+    }
+
+    /**
+     * @return Counts of the community cards.
+     */
+    public Scoring.CardCounter getCommunity(){
+        return community;
+    }
+
+    @Override
+    public String toString(){
+        return "Hole " + CardSet.toString(hole) + ", board " + CardSet.toString(board);
+    }
+}
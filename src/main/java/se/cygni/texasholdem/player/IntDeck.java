@@ -0,0 +1,82 @@
+package se.cygni.texasholdem.player;
+
+/**
+ * Deck of card numbers as in CardSet, dealt one card at a time by partial Fisher-Yates.
+ * Dealing n cards costs n random numbers, and the deck is reused for the next hand
+ * without allocating: the order left by earlier deals is as random as a new shuffle.
+ *
+ * Not thread safe, every thread or task should own one, as its @see SplitMix64
+ */
+public final class IntDeck {
+
+    private final int[] cards = new int[52];
+    private final SplitMix64 random;
+    private int size;
+    private int dealt;
+
+    public IntDeck(SplitMix64 random){
+        this(CardSet.EMPTY, random);
+    }
+
+    /**
+     * @param dead Cards left out of the deck, ex my hole cards and the board
+     */
+    public IntDeck(long dead, SplitMix64 random){
+        this.random = random;
+        exclude(dead);
+    }
+
+    /**
+     * Starts over with all cards except the dead ones.
+     */
+    public void exclude(long dead){
+        size = 0;
+        for(long rest = CardSet.FULL_DECK & ~dead; rest != 0; rest &= rest-1){
+            cards[size++] = Long.numberOfTrailingZeros(rest);
+        }
+        dealt = 0;
+    }
+
+    /**
+     * Puts the dealt cards back.
+     */
+    public void collect(){
+        dealt = 0;
+    }
+
+    /**
+     * @return Number of the card, see @see CardSet#index(int, int)
+     */
+    public int deal(){
+        final int ix = dealt + random.nextInt(size - dealt);
+        final int card = cards[ix];
+        cards[ix] = cards[dealt];
+        cards[dealt++] = card;
+        return card;
+    }
+
+    /**
+     * @return The dealt card as a CardSet.
+     */
+    public long dealCard(){
+        return 1L << deal();
+    }
+
+    /**
+     * @return CardSet of n dealt cards.
+     */
+    public long deal(int n){
+        long dealtCards = CardSet.EMPTY;
+        for(int ix = 0; ix < n; ++ix){
+            dealtCards |= 1L << deal();
+        }
+        return dealtCards;
+    }
+
+    /**
+     * @return Number of cards not yet dealt.
+     */
+    public int remaining(){
+        return size - dealt;
+    }
+}
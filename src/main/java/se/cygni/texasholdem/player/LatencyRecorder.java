@@ -0,0 +1,101 @@
+package se.cygni.texasholdem.player;
+
+/**
+ * Round trip times in constant memory: counts in buckets doubling in width from one
+ * microsecond, so percentiles are known within a factor of two, plus the exact mean and maximum.
+ *
+ * Every table thread records into its own players' recorders while the server
+ * adds them up for the report, so all access is synchronized.
+ */
+public class LatencyRecorder {
+
+    private static final int BUCKETS = 40;
+
+    private final long[] buckets = new long[BUCKETS];
+    private long count = 0;
+    private long totalNanos = 0;
+    private long maxNanos = 0;
+    private long timeouts = 0;
+
+    public synchronized void record(long nanos){
+        buckets[bucketOf(nanos)]++;
+        count++;
+        totalNanos += nanos;
+        maxNanos = Math.max(maxNanos, nanos);
+    }
+
+    /**
+     * An answer that did not come within the time limit, not counted among the round trips.
+     */
+    public synchronized void timeout(){
+        timeouts++;
+    }
+
+    public synchronized void add(LatencyRecorder other){
+        final long[] otherBuckets;
+        final long otherCount, otherTotal, otherMax, otherTimeouts;
+        synchronized (other){
+            otherBuckets = other.buckets.clone();
+            otherCount = other.count;
+            otherTotal = other.totalNanos;
+            otherMax = other.maxNanos;
+            otherTimeouts = other.timeouts;
+        }
+        for(int ix = 0; ix < BUCKETS; ++ix){
+            buckets[ix] += otherBuckets[ix];
+        }
+        count += otherCount;
+        totalNanos += otherTotal;
+        maxNanos = Math.max(maxNanos, otherMax);
+        timeouts += otherTimeouts;
+    }
+
+    /**
+     * @return Bucket ix holds times below 2^ix microseconds, and at least half that.
+     */
+    private static int bucketOf(long nanos){
+        final long micros = nanos / 1000;
+        return Math.min(BUCKETS-1, 64 - Long.numberOfLeadingZeros(micros));
+    }
+
+    public synchronized long getCount(){
+        return count;
+    }
+
+    public synchronized long getTimeouts(){
+        return timeouts;
+    }
+
+    public synchronized double getMeanMillis(){
+        return count == 0 ? Double.NaN : totalNanos / 1e6 / count;
+    }
+
+    public synchronized double getMaxMillis(){
+        return maxNanos / 1e6;
+    }
+
+    /**
+     * @param fraction Ex 0.99 for the 99th percentile
+     * @return Upper bound of the bucket holding the percentile, in milliseconds.
+     */
+    public synchronized double getPercentileMillis(double fraction){
+        if(count == 0){
+            return Double.NaN;
+        }
+        final long rank = (long) Math.ceil(fraction * count);
+        long seen = 0;
+        for(int ix = 0; ix < BUCKETS; ++ix){
+            seen += buckets[ix];
+            if(seen >= rank){
+                return (1L << ix) / 1e3;
+            }
+        }
+        return getMaxMillis();
+    }
+
+    @Override
+    public synchronized String toString(){
+        return count+" actions, mean "+getMeanMillis()+" ms, p50 < "+getPercentileMillis(0.5)
+                +" ms, p99 < "+getPercentileMillis(0.99)+" ms, max "+getMaxMillis()+" ms, "+timeouts+" timeouts";
+    }
+}
@@ -0,0 +1,657 @@
+package se.cygni.texasholdem.player;
+
+import se.cygni.texasholdem.communication.message.event.*;
+import se.cygni.texasholdem.communication.message.request.ActionRequest;
+import se.cygni.texasholdem.game.Action;
+import se.cygni.texasholdem.game.ActionType;
+import se.cygni.texasholdem.game.GamePlayer;
+import se.cygni.texasholdem.game.Hand;
+import se.cygni.texasholdem.game.PlayerShowDown;
+import se.cygni.texasholdem.game.definitions.PlayState;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Poker table played in process: deals hands to Player implementations and calls them
+ * directly with the requests and events the server would send, without sockets or time limits.
+ * The deck is seeded, so a match of deterministic bots can be replayed.
+ *
+ * Blinds follow the dealer button, heads up the dealer posts the small blind.
+ * Raises are one big blind over the bet to call, at most @see LocalTable#MAX_RAISES per
+ * betting round, and a player may always go all in. An all in less than a raise over the bet
+ * is not a raise: the others only have to call it, and those who already acted may not raise
+ * again because of it. Chips are split in side pots at showdown.
+ * An action that was not offered, or an exception from the player, is a forced fold.
+ *
+ * Not thread safe, every thread should play its own table.
+ */
+public class LocalTable {
+
+    /** Raises allowed in one betting round, after that players may only call or go all in. */
+    public static final int MAX_RAISES = 4;
+
+    private static final int[] NO_CARDS = new int[0];
+
+    private final long smallBlind;
+    private final long bigBlind;
+    private final long startingChips;
+    private final long tableId;
+    private final IntDeck deck;
+
+    private final List<Seat> seats = new ArrayList<Seat>();
+    private int dealer = -1;
+    private long community;
+    private int playersInHand;
+    private long hands = 0;
+
+    /** Cards the next hand deals first, @see LocalTable#stackNextHand(int...) */
+    private int[] stacked = NO_CARDS;
+    private int stackedDealt = 0;
+
+    /** Bet to match in the current betting round. */
+    private long currentBet;
+    private int raises;
+
+    /**
+     * @param startingChips Chips of every seat when seated and, in @see LocalTable#playHands(long), before every hand
+     * @param seed Same seed and same decisions give the same hands
+     */
+    public LocalTable(long smallBlind, long bigBlind, long startingChips, long seed){
+        this.smallBlind = smallBlind;
+        this.bigBlind = bigBlind;
+        this.startingChips = startingChips;
+        this.tableId = seed;
+        this.deck = new IntDeck(new SplitMix64(seed));
+    }
+
+    /**
+     * Plays independent hands between copies of @see FullyImplementedBot and prints what every seat won.
+     *
+     * Usage: LocalTable [hands] [players] [seed]
+     */
+    public static void main(String[] args){
+        final long count = args.length > 0 ? Long.parseLong(args[0]) : 10000;
+        final int players = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+        final long seed = args.length > 2 ? Long.parseLong(args[2]) : System.nanoTime();
+
+        final LocalTable table = new LocalTable(5, 10, 1000, seed);
+        for(int ix = 0; ix < players; ++ix){
+            new FullyImplementedBot("Bot"+ix, table);
+        }
+        final long start = System.currentTimeMillis();
+        table.playHands(count);
+        final long millis = Math.max(1, System.currentTimeMillis() - start);
+
+        System.out.println("Played "+table.getHands()+" hands in "+millis+" ms, "+table.getHands()*1000/millis+" hands/s");
+        for(int ix = 0; ix < players; ++ix){
+            System.out.println("Seat "+ix+": "+table.getBigBlindsPerHand(ix)+" big blinds per hand, standard error "+table.getStandardError(ix));
+        }
+    }
+
+    /**
+     * Seats the player in the next free seat, players act in the order they were seated.
+     *
+     * @return What the player may ask about the table, @see FullyImplementedBot#FullyImplementedBot(String, LocalTable)
+     */
+    public TableView seat(Player player){
+        final Seat seat = new Seat(player);
+        seats.add(seat);
+        return seat;
+    }
+
+    public int getSeats(){
+        return seats.size();
+    }
+
+    public long getHands(){
+        return hands;
+    }
+
+    public long getChips(int seat){
+        return seats.get(seat).chips;
+    }
+
+    /**
+     * Deals these cards first in the next hand, ex known hands in tests: the hole cards one at
+     * a time from the seat after the dealer, then the board. Any more come from the deck.
+     *
+     * @param cards Numbers as in @see CardSet#index(int, int)
+     */
+    void stackNextHand(int... cards){
+        stacked = cards.clone();
+        stackedDealt = 0;
+    }
+
+    private int dealCard(){
+        if(stackedDealt < stacked.length){
+            return stacked[stackedDealt++];
+        }
+        return deck.deal();
+    }
+
+    /**
+     * Gives the seat other chips for the next @see LocalTable#playHand(), ex uneven stacks in tests.
+     */
+    void setChips(int seat, long chips){
+        seats.get(seat).chips = chips;
+    }
+
+    /**
+     * @return Mean chips won per hand by the seat, in big blinds.
+     */
+    public double getBigBlindsPerHand(int seat){
+        final Seat s = seats.get(seat);
+        return s.handsPlayed == 0 ? 0.0 : s.totalResult / s.handsPlayed / bigBlind;
+    }
+
+    /**
+     * @return Standard error of @see LocalTable#getBigBlindsPerHand(int)
+     */
+    public double getStandardError(int seat){
+        final Seat s = seats.get(seat);
+        if(s.handsPlayed < 2){
+            return Double.NaN;
+        }
+        final double mean = s.totalResult / s.handsPlayed;
+        final double variance = (s.totalSquares - s.handsPlayed*mean*mean) / (s.handsPlayed - 1);
+        return Math.sqrt(Math.max(variance, 0.0) / s.handsPlayed) / bigBlind;
+    }
+
+    /**
+     * Plays independent hands, every seat starting each hand with the starting chips,
+     * and records the chips every seat won or lost.
+     */
+    public void playHands(long count){
+        for(long ix = 0; ix < count; ++ix){
+            for(Seat s : seats){
+                s.chips = startingChips;
+            }
+            playHand();
+        }
+    }
+
+    /**
+     * Plays until one seat has all the chips or the hands run out, then tells every player the table is done.
+     *
+     * @return Seat with the most chips.
+     */
+    public int playTournament(long maxHands){
+        for(long ix = 0; ix < maxHands && playHand(); ++ix){
+            // Next hand
+        }
+        int leader = 0;
+        for(int ix = 0; ix < seats.size(); ++ix){
+            seats.get(ix).player.onTableIsDone(new TableIsDoneEvent());
+            if(seats.get(ix).chips > seats.get(leader).chips){
+                leader = ix;
+            }
+        }
+        return leader;
+    }
+
+    /**
+     * Plays one hand with the chips the seats have.
+     *
+     * @return False if fewer than two seats have chips, and no hand was played.
+     */
+    public boolean playHand(){
+        playersInHand = 0;
+        for(Seat s : seats){
+            s.newHand();
+            if(s.inHand){
+                ++playersInHand;
+            }
+        }
+        if(playersInHand < 2){
+            return false;
+        }
+        ++hands;
+        community = CardSet.EMPTY;
+        if(stacked.length > 0){
+            long stackedCards = CardSet.EMPTY;
+            for(int card : stacked){
+                stackedCards |= 1L << card;
+            }
+            deck.exclude(stackedCards);
+        } else {
+            deck.collect();
+        }
+
+        dealer = next(dealer);
+        final int small = playersInHand == 2 ? dealer : next(dealer);
+        final int big = next(small);
+
+        broadcastStarted(small, big);
+        changeState(PlayState.PRE_FLOP);
+        postSmallBlind(seats.get(small));
+        postBigBlind(seats.get(big));
+
+        for(int round = 0; round < 2; ++round){
+            int ix = dealer;
+            for(int dealt = 0; dealt < playersInHand; ++dealt){
+                ix = next(ix);
+                final int card = dealCard();
+                final Seat s = seats.get(ix);
+                s.hole |= 1L << card;
+                s.player.onYouHaveBeenDealtACard(new YouHaveBeenDealtACardEvent(CardSet.card(card)));
+            }
+        }
+
+        currentBet = Math.max(seats.get(small).bet, seats.get(big).bet);
+        bettingRound(next(big));
+
+        dealStreet(PlayState.FLOP, 3);
+        dealStreet(PlayState.TURN, 1);
+        dealStreet(PlayState.RIVER, 1);
+
+        changeState(PlayState.SHOWDOWN);
+        payout();
+        if(stacked.length > 0){
+            // Back to the whole deck
+            stacked = NO_CARDS;
+            deck.exclude(CardSet.EMPTY);
+        }
+
+        for(Seat s : seats){
+            if(s.inHand){
+                final long result = s.chips - s.startChips;
+                s.handsPlayed++;
+                s.totalResult += result;
+                s.totalSquares += (double) result * result;
+            }
+        }
+        return true;
+    }
+
+    private void dealStreet(PlayState state, int cards){
+        if(contenders() < 2){
+            return;
+        }
+        changeState(state);
+        for(int ix = 0; ix < cards; ++ix){
+            final int card = dealCard();
+            community |= 1L << card;
+            final CommunityHasBeenDealtACardEvent event = new CommunityHasBeenDealtACardEvent(CardSet.card(card));
+            for(Seat s : seats){
+                if(s.inHand){
+                    s.player.onCommunityHasBeenDealtACard(event);
+                }
+            }
+        }
+        for(Seat s : seats){
+            s.bet = 0;
+            s.acted = false;
+        }
+        currentBet = 0;
+        bettingRound(next(dealer));
+    }
+
+    /**
+     * Asks the seats for actions in turn until every seat that can act has matched the bet.
+     *
+     * @param first Seat to act first
+     */
+    private void bettingRound(int first){
+        raises = 0;
+        int ix = first;
+        for(int idle = 0; idle < seats.size() && contenders() > 1; ){
+            final Seat s = seats.get(ix);
+            if(needsAction(s)){
+                act(s);
+                idle = 0;
+            } else {
+                ++idle;
+            }
+            ix = (ix + 1) % seats.size();
+        }
+    }
+
+    private boolean needsAction(Seat s){
+        if(!s.canAct() || (s.acted && s.bet >= currentBet)){
+            return false;
+        }
+        // Nobody left to bet against
+        return s.bet < currentBet || othersCanAct(s) > 0;
+    }
+
+    private void act(Seat s){
+        final long toCall = Math.min(currentBet - s.bet, s.chips);
+        final List<Action> possible = new ArrayList<Action>(4);
+        possible.add(new Action(ActionType.FOLD, 0));
+        if(toCall == 0){
+            possible.add(new Action(ActionType.CHECK, 0));
+        } else if(toCall < s.chips){
+            possible.add(new Action(ActionType.CALL, toCall));
+        }
+        // Asked again after acting only to call a short all in, which does not reopen the betting
+        if(raises < MAX_RAISES && !s.acted && toCall + bigBlind < s.chips && othersCanAct(s) > 0){
+            possible.add(new Action(ActionType.RAISE, toCall + bigBlind));
+        }
+        possible.add(new Action(ActionType.ALL_IN, s.chips));
+
+        Action chosen = null;
+        try {
+            final Action response = s.player.actionRequired(new ActionRequest(possible));
+            if(response != null){
+                for(Action a : possible){
+                    if(a.getActionType() == response.getActionType()){
+                        chosen = a;
+                    }
+                }
+            }
+        } catch (RuntimeException e){
+            chosen = null;
+        }
+        s.acted = true;
+
+        if(chosen == null){
+            s.folded = true;
+            broadcast(new PlayerForcedFoldedEvent(s.gamePlayer(), s.invested));
+            return;
+        }
+        switch (chosen.getActionType()){
+            case FOLD:
+                s.folded = true;
+                broadcast(new PlayerFoldedEvent(s.gamePlayer(), s.invested));
+                break;
+            case CHECK:
+                broadcast(new PlayerCheckedEvent(s.gamePlayer()));
+                break;
+            case CALL:
+                s.put(chosen.getAmount());
+                broadcast(new PlayerCalledEvent(s.gamePlayer(), chosen.getAmount()));
+                break;
+            case RAISE:
+                s.put(chosen.getAmount());
+                raised(s);
+                broadcast(new PlayerRaisedEvent(s.gamePlayer(), chosen.getAmount()));
+                break;
+            case ALL_IN:
+                s.put(chosen.getAmount());
+                if(s.bet >= currentBet + bigBlind){
+                    raised(s);
+                } else if(s.bet > currentBet){
+                    currentBet = s.bet;
+                }
+                broadcast(new PlayerWentAllInEvent(s.gamePlayer(), chosen.getAmount()));
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void raised(Seat raiser){
+        currentBet = raiser.bet;
+        ++raises;
+        for(Seat s : seats){
+            if(s != raiser){
+                s.acted = false;
+            }
+        }
+    }
+
+    private void postSmallBlind(Seat s){
+        s.put(Math.min(smallBlind, s.chips));
+        broadcast(new PlayerBetSmallBlindEvent(s.gamePlayer(), s.bet));
+    }
+
+    private void postBigBlind(Seat s){
+        s.put(Math.min(bigBlind, s.chips));
+        broadcast(new PlayerBetBigBlindEvent(s.gamePlayer(), s.bet));
+    }
+
+    /**
+     * Splits the chips put in into the main pot and side pots, each won by the best hand
+     * among the seats that put in at least as much. Odd chips go to the first winner after the dealer.
+     */
+    private void payout(){
+        final int n = seats.size();
+        final long[] left = new long[n];
+        final int[] strengths = new int[n];
+        for(int ix = 0; ix < n; ++ix){
+            final Seat s = seats.get(ix);
+            left[ix] = s.invested;
+            strengths[ix] = HandEvaluator.evaluate(s.hole | community);
+        }
+
+        final boolean[] winner = new boolean[n];
+        while(true){
+            // Every contender with chips left puts the lowest of them in this pot
+            long level = Long.MAX_VALUE;
+            long top = 0;
+            int best = -1;
+            for(int ix = 0; ix < n; ++ix){
+                if(seats.get(ix).contends() && left[ix] > 0){
+                    level = Math.min(level, left[ix]);
+                    top = Math.max(top, left[ix]);
+                    best = Math.max(best, strengths[ix]);
+                }
+            }
+            if(best < 0){
+                break;
+            }
+            int winners = 0;
+            for(int ix = 0; ix < n; ++ix){
+                winner[ix] = seats.get(ix).contends() && left[ix] > 0 && strengths[ix] == best;
+                if(winner[ix]){
+                    ++winners;
+                }
+            }
+
+            // The last pot also takes what folded seats put in above every contender
+            final boolean last = level == top;
+            long pot = 0;
+            for(int ix = 0; ix < n; ++ix){
+                final long part = last ? left[ix] : Math.min(left[ix], level);
+                pot += part;
+                left[ix] -= part;
+            }
+
+            long oddChips = pot % winners;
+            int ix = dealer;
+            for(int counted = 0; counted < playersInHand; ++counted){
+                ix = next(ix);
+                if(winner[ix]){
+                    final Seat s = seats.get(ix);
+                    final long share = pot / winners + oddChips;
+                    oddChips = 0;
+                    s.chips += share;
+                    s.won += share;
+                }
+            }
+        }
+
+        final List<PlayerShowDown> showDowns = new ArrayList<PlayerShowDown>();
+        for(int ix = 0; ix < n; ++ix){
+            final Seat s = seats.get(ix);
+            if(s.inHand){
+                final Hand hand = new Hand(CardSet.toList(s.hole | community),
+                        HandEvaluator.pokerHand(strengths[ix]), s.folded);
+                showDowns.add(new PlayerShowDown(s.gamePlayer(), hand, s.won));
+            }
+        }
+        for(Seat s : seats){
+            if(s.won > 0){
+                s.player.onYouWonAmount(new YouWonAmountEvent(s.won, s.chips));
+            }
+        }
+        final ShowDownEvent showDown = new ShowDownEvent(showDowns);
+        for(Seat s : seats){
+            if(s.inHand){
+                s.player.onShowDown(showDown);
+            }
+        }
+    }
+
+    private int contenders(){
+        int count = 0;
+        for(Seat s : seats){
+            if(s.contends()){
+                ++count;
+            }
+        }
+        return count;
+    }
+
+    private int othersCanAct(Seat me){
+        int count = 0;
+        for(Seat s : seats){
+            if(s != me && s.canAct()){
+                ++count;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return Next seat after ix that was dealt into the hand.
+     */
+    private int next(int ix){
+        do {
+            ix = (ix + 1) % seats.size();
+        } while(!seats.get(ix).inHand);
+        return ix;
+    }
+
+    private void changeState(PlayState state){
+        final TableChangedStateEvent event = new TableChangedStateEvent(state);
+        for(Seat s : seats){
+            if(s.inHand){
+                s.player.onTableChangedStateEvent(event);
+            }
+        }
+    }
+
+    /**
+     * Tells the seats in the hand who plays it with which chips, before the blinds are posted.
+     */
+    private void broadcastStarted(int small, int big){
+        final List<GamePlayer> players = new ArrayList<GamePlayer>();
+        for(Seat s : seats){
+            if(s.inHand){
+                players.add(s.gamePlayer());
+            }
+        }
+        final PlayIsStartedEvent event = new PlayIsStartedEvent(players, smallBlind, bigBlind,
+                seats.get(dealer).gamePlayer(), seats.get(small).gamePlayer(), seats.get(big).gamePlayer(), tableId);
+        for(Seat s : seats){
+            if(s.inHand){
+                s.player.onPlayIsStarted(event);
+            }
+        }
+    }
+
+    private void broadcast(TexasEvent event){
+        for(Seat s : seats){
+            if(!s.inHand){
+                continue;
+            }
+            final Player p = s.player;
+            if(event instanceof PlayerFoldedEvent){
+                p.onPlayerFolded((PlayerFoldedEvent) event);
+            } else if(event instanceof PlayerForcedFoldedEvent){
+                p.onPlayerForcedFolded((PlayerForcedFoldedEvent) event);
+            } else if(event instanceof PlayerCheckedEvent){
+                p.onPlayerChecked((PlayerCheckedEvent) event);
+            } else if(event instanceof PlayerCalledEvent){
+                p.onPlayerCalled((PlayerCalledEvent) event);
+            } else if(event instanceof PlayerRaisedEvent){
+                p.onPlayerRaised((PlayerRaisedEvent) event);
+            } else if(event instanceof PlayerWentAllInEvent){
+                p.onPlayerWentAllIn((PlayerWentAllInEvent) event);
+            } else if(event instanceof PlayerBetSmallBlindEvent){
+                p.onPlayerBetSmallBlind((PlayerBetSmallBlindEvent) event);
+            } else if(event instanceof PlayerBetBigBlindEvent){
+                p.onPlayerBetBigBlind((PlayerBetBigBlindEvent) event);
+            }
+        }
+    }
+
+    /**
+     * A player at the table and its chips, and what it may ask about the table.
+     */
+    private class Seat implements TableView {
+        private final Player player;
+        private final String name;
+        private long chips = startingChips;
+
+        private long startChips;
+        private boolean inHand;
+        private long hole;
+        private boolean folded;
+        private boolean allIn;
+        private boolean acted;
+        /** Chips put in during the current betting round. */
+        private long bet;
+        /** Chips put in during the hand. */
+        private long invested;
+        private long won;
+
+        private long handsPlayed = 0;
+        private double totalResult = 0.0;
+        private double totalSquares = 0.0;
+
+        private Seat(Player player){
+            this.player = player;
+            this.name = player.getName();
+        }
+
+        private void newHand(){
+            startChips = chips;
+            inHand = chips > 0;
+            hole = CardSet.EMPTY;
+            folded = false;
+            allIn = false;
+            acted = false;
+            bet = 0;
+            invested = 0;
+            won = 0;
+        }
+
+        private void put(long amount){
+            chips -= amount;
+            bet += amount;
+            invested += amount;
+            if(chips == 0){
+                allIn = true;
+            }
+        }
+
+        private boolean contends(){
+            return inHand && !folded;
+        }
+
+        private boolean canAct(){
+            return contends() && !allIn;
+        }
+
+        private GamePlayer gamePlayer(){
+            return new GamePlayer(name, chips);
+        }
+
+        @Override
+        public int getNumberOfPlayers() {
+            return playersInHand;
+        }
+
+        @Override
+        public long getMyCurrentChipAmount() {
+            return chips;
+        }
+
+        @Override
+        public long getTableId() {
+            return tableId;
+        }
+
+        @Override
+        public long getPotTotal() {
+            long pot = 0;
+            for(Seat s : seats){
+                pot += s.invested;
+            }
+            return pot;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package se.cygni.texasholdem.player;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Equity against several opponents holding random cards, estimated by dealing
+ * random opponent hands and boards and playing them out.
+ *
+ * Samples are split in fixed size chunks that run on a pool with one thread per core.
+ * Every chunk has its own random generator seeded from the chunk number,
+ * so a given seed gives the same answer whatever the number of cores.
+ */
+public class MonteCarloEquity {
+
+    private static final int CHUNK = 2048;
+    private static final long DEFAULT_SEED = 0x5EEDL;
+
+    private static final ExecutorService POOL = Executors.newFixedThreadPool(
+            Runtime.getRuntime().availableProcessors(), new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    final Thread t = new Thread(r, "MonteCarloEquity");
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+
+    private MonteCarloEquity(){}
+
+    public static Equity compute(long hole, long board, int opponents, int samples){
+        return compute(hole, board, opponents, samples, DEFAULT_SEED ^ hole ^ board * 31);
+    }
+
+    /**
+     * @param hole My two cards
+     * @param board Known community cards, 0 to 5 of them
+     * @param opponents Number of opponents still in the hand
+     * @param samples Number of deals to play out
+     * @param seed Same seed gives the same result
+     */
+    public static Equity compute(final long hole, final long board, final int opponents, int samples, final long seed){
+        final int chunks = (samples + CHUNK - 1) / CHUNK;
+        final List<Future<Tally>> futures = new ArrayList<Future<Tally>>(chunks);
+        for(int ix = 0; ix < chunks; ++ix){
+            final int chunk = ix;
+            final int size = Math.min(CHUNK, samples - chunk*CHUNK);
+            futures.add(POOL.submit(new Callable<Tally>() {
+                @Override
+                public Tally call() {
+                    final Tally tally = new Tally();
+                    tally.play(hole, board, opponents, size, new SplitMix64(SplitMix64.seed(seed, chunk)));
+                    return tally;
+                }
+            }));
+        }
+
+        final Tally total = new Tally();
+        try {
+            for(Future<Tally> f : futures){
+                total.add(f.get());
+            }
+        } catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e){
+            throw new IllegalStateException(e.getCause());
+        }
+        return total.toEquity();
+    }
+
+    /**
+     * Outcome counts of a number of deals.
+     */
+    static class Tally {
+        long samples = 0;
+        long wins = 0;
+        long ties = 0;
+        double share = 0.0;
+        double shareSquares = 0.0;
+
+        /**
+         * Deals and plays out samples hands from the live cards.
+         */
+        void play(long hole, long board, int opponents, int samples, SplitMix64 random){
+            final IntDeck deck = new IntDeck(hole | board, random);
+            final int missing = 5 - CardSet.size(board);
+
+            for(int sample = 0; sample < samples; ++sample){
+                deck.collect();
+                final long fullBoard = board | deck.deal(missing);
+                final int mine = HandEvaluator.evaluate(hole | fullBoard);
+
+                int best = 0;
+                int tied = 0;
+                for(int op = 0; op < opponents; ++op){
+                    final long theirs = deck.deal(2);
+                    final int strength = HandEvaluator.evaluate(fullBoard | theirs);
+                    if(strength > best){
+                        best = strength;
+                        tied = 0;
+                    }
+                    if(strength == best){
+                        ++tied;
+                    }
+                }
+                record(mine, best, tied);
+            }
+        }
+
+        void record(int mine, int best, int tied){
+            ++samples;
+            if(mine > best){
+                ++wins;
+                share += 1.0;
+                shareSquares += 1.0;
+            } else if(mine == best){
+                ++ties;
+                final double part = 1.0 / (tied + 1);
+                share += part;
+                shareSquares += part * part;
+            }
+        }
+
+        void add(Tally other){
+            samples += other.samples;
+            wins += other.wins;
+            ties += other.ties;
+            share += other.share;
+            shareSquares += other.shareSquares;
+        }
+
+        Equity toEquity(){
+            final double n = samples;
+            return new Equity(wins / n, ties / n, (samples - wins - ties) / n, share / n);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package se.cygni.texasholdem.player;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import se.cygni.texasholdem.game.Card;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+
+/**
+ * Equity of all 169 starting hands against 1 to 9 opponents holding random cards,
+ * read once from the resource built by @see PreflopTableGenerator
+ *
+ * A starting hand class is a pair, a suited or an offsuit combination of two ranks.
+ * Pairs are stored on the diagonal of a 13x13 matrix, suited hands with the higher rank
+ * as row and offsuit hands with the lower rank as row.
+ */
+public class PreflopTable {
+
+    private static Logger log = LoggerFactory.getLogger(PreflopTable.class);
+
+    public static final String RESOURCE = "/preflop_equity.txt";
+
+    public static final int CLASSES = 169;
+    public static final int MAX_OPPONENTS = 9;
+
+    private static final String RANK_NAMES = "23456789TJQKA";
+
+    private static final double[] EQUITY = load();
+
+    private PreflopTable(){}
+
+    public static boolean isLoaded(){
+        return EQUITY != null;
+    }
+
+    /**
+     * @param opponents Number of opponents, between 1 and 9
+     * @return Expected share of the pot at showdown.
+     */
+    public static double equity(Card a, Card b, int opponents){
+        return equity(classOf(a.getRank().ordinal(), b.getRank().ordinal(), a.getSuit() == b.getSuit()), opponents);
+    }
+
+    public static double equity(long hole, int opponents){
+        final int first = Long.numberOfTrailingZeros(hole);
+        final int second = 63 - Long.numberOfLeadingZeros(hole);
+        final boolean suited = CardSet.suitOf(first) == CardSet.suitOf(second);
+        return equity(classOf(CardSet.rankOf(first), CardSet.rankOf(second), suited), opponents);
+    }
+
+    public static double equity(int handClass, int opponents){
+        return EQUITY[handClass*MAX_OPPONENTS + opponents-1];
+    }
+
+    public static int classOf(int rankA, int rankB, boolean suited){
+        final int high = Math.max(rankA, rankB);
+        final int low = Math.min(rankA, rankB);
+        if(suited){
+            return high*CardSet.RANKS + low;
+        }
+        return low*CardSet.RANKS + high;
+    }
+
+    /**
+     * @return Ex "AKs", "T9o" or "77"
+     */
+    public static String name(int handClass){
+        final int row = handClass / CardSet.RANKS;
+        final int col = handClass % CardSet.RANKS;
+        if(row == col){
+            return "" + RANK_NAMES.charAt(row) + RANK_NAMES.charAt(col);
+        }
+        if(row > col){
+            return "" + RANK_NAMES.charAt(row) + RANK_NAMES.charAt(col) + "s";
+        }
+        return "" + RANK_NAMES.charAt(col) + RANK_NAMES.charAt(row) + "o";
+    }
+
+    private static double[] load(){
+        final InputStream in = PreflopTable.class.getResourceAsStream(RESOURCE);
+        if(in == null){
+            log.warn("Missing preflop table {}", RESOURCE);
+            return null;
+        }
+        final double[] table = new double[CLASSES*MAX_OPPONENTS];
+        try {
+            final BufferedReader reader = new BufferedReader(new InputStreamReader(in, "UTF-8"));
+            try {
+                String line;
+                while((line = reader.readLine()) != null){
+                    if(line.isEmpty() || line.startsWith("#")){
+                        continue;
+                    }
+                    final String[] fields = line.trim().split("\\s+");
+                    final int handClass = Integer.parseInt(fields[0]);
+                    for(int ix = 0; ix < MAX_OPPONENTS; ++ix){
+                        table[handClass*MAX_OPPONENTS + ix] = Double.parseDouble(fields[ix+2]);
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (IOException e){
+            log.warn("Could not read preflop table "+RESOURCE, e);
+            return null;
+        }
+        return table;
+    }
+}
@@ -0,0 +1,127 @@
+package se.cygni.texasholdem.player;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Builds the resource read by @see PreflopTable
+ *
+ * Every starting hand class is played against 9 opponents on random boards.
+ * The same deal is scored against the first 1, 2, ..., 9 opponents,
+ * so one deal gives a sample for every number of opponents.
+ * Classes are computed in parallel and every class has its own seed,
+ * so the result does not depend on the number of threads.
+ *
+ * Usage: PreflopTableGenerator [samples per class] [threads] [output file]
+ */
+public class PreflopTableGenerator {
+
+    private static final long SEED = 20150420L;
+
+    public static void main(String[] args) throws Exception {
+        final int samples = args.length > 0 ? Integer.parseInt(args[0]) : 2000000;
+        final int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        final String output = args.length > 2 ? args[2] : "src/main/resources" + PreflopTable.RESOURCE;
+
+        final long start = System.currentTimeMillis();
+        final double[][] table = generate(samples, threads);
+        write(table, samples, output);
+        System.out.println("Wrote "+output+" in "+(System.currentTimeMillis()-start)/1000+" s");
+    }
+
+    public static double[][] generate(final int samples, int threads) throws Exception {
+        final ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            final List<Future<double[]>> futures = new ArrayList<Future<double[]>>(PreflopTable.CLASSES);
+            for(int ix = 0; ix < PreflopTable.CLASSES; ++ix){
+                final int handClass = ix;
+                futures.add(pool.submit(new Callable<double[]>() {
+                    @Override
+                    public double[] call() {
+                        return simulate(handClass, samples, new SplitMix64(SplitMix64.seed(SEED, handClass)));
+                    }
+                }));
+            }
+            final double[][] table = new double[PreflopTable.CLASSES][];
+            for(int ix = 0; ix < PreflopTable.CLASSES; ++ix){
+                table[ix] = futures.get(ix).get();
+            }
+            return table;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * @return Equity against 1 to 9 opponents.
+     */
+    static double[] simulate(int handClass, int samples, SplitMix64 random){
+        final int row = handClass / CardSet.RANKS;
+        final int col = handClass % CardSet.RANKS;
+        // Suited on one suit, otherwise first card in suit 0 and second in suit 1.
+        final long hole = row > col
+                ? CardSet.of(row, 0) | CardSet.of(col, 0)
+                : CardSet.of(row, 0) | CardSet.of(col, 1);
+
+        final IntDeck deck = new IntDeck(hole, random);
+        final int[] theirs = new int[PreflopTable.MAX_OPPONENTS];
+        final double[] share = new double[PreflopTable.MAX_OPPONENTS];
+
+        for(int sample = 0; sample < samples; ++sample){
+            deck.collect();
+            final long board = deck.deal(5);
+            for(int op = 0; op < theirs.length; ++op){
+                final long cards = deck.deal(2);
+                theirs[op] = HandEvaluator.evaluate(board | cards);
+            }
+            final int mine = HandEvaluator.evaluate(board | hole);
+
+            int best = 0;
+            int tied = 0;
+            for(int op = 0; op < theirs.length; ++op){
+                if(theirs[op] > best){
+                    best = theirs[op];
+                    tied = 0;
+                }
+                if(theirs[op] == best){
+                    ++tied;
+                }
+                if(mine > best){
+                    share[op] += 1.0;
+                } else if(mine == best){
+                    share[op] += 1.0 / (tied + 1);
+                }
+            }
+        }
+        for(int op = 0; op < share.length; ++op){
+            share[op] /= samples;
+        }
+        return share;
+    }
+
+    private static void write(double[][] table, int samples, String output) throws IOException {
+        final Writer out = new OutputStreamWriter(new FileOutputStream(output), "UTF-8");
+        try {
+            out.write("# Generated by PreflopTableGenerator, "+samples+" samples per hand class.\n");
+            out.write("# class name equity against 1..9 random opponents\n");
+            for(int ix = 0; ix < table.length; ++ix){
+                out.write(ix + " " + PreflopTable.name(ix));
+                for(double e : table[ix]){
+                    out.write(String.format(Locale.ROOT, " %.5f", e));
+                }
+                out.write("\n");
+            }
+        } finally {
+            out.close();
+        }
+    }
+}
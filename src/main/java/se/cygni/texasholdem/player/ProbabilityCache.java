@@ -0,0 +1,166 @@
+package se.cygni.texasholdem.player;
+
+import java.util.Arrays;
+
+/**
+ * Bounded cache of probability distributions keyed by a long, ex a canonical CardSet.
+ * When full the least recently used entry is evicted.
+ *
+ * All storage is allocated up front, so neither lookups nor insertions allocate.
+ * Entries are chained in hash buckets and linked in a list ordered by last use.
+ */
+public class ProbabilityCache {
+
+    private static final int NONE = -1;
+
+    private final int capacity;
+    private final int width;
+
+    private final long[] keys;
+    private final double[] values;
+    private final int[] buckets;
+    private final int[] chain;
+    private final int[] newer;
+    private final int[] older;
+
+    private int size = 0;
+    private int newest = NONE;
+    private int oldest = NONE;
+
+    private long hits = 0;
+    private long misses = 0;
+
+    /**
+     * @param capacity Max number of entries
+     * @param width Number of doubles in every distribution
+     */
+    public ProbabilityCache(int capacity, int width){
+        this.capacity = capacity;
+        this.width = width;
+        keys = new long[capacity];
+        values = new double[capacity*width];
+        chain = new int[capacity];
+        newer = new int[capacity];
+        older = new int[capacity];
+        buckets = new int[Integer.highestOneBit(capacity*2 - 1)];
+        clear();
+    }
+
+    /**
+     * Copies the cached distribution into out.
+     *
+     * @return False if key is not in the cache.
+     */
+    public synchronized boolean get(long key, double[] out){
+        final int entry = find(key);
+        if(entry == NONE){
+            ++misses;
+            return false;
+        }
+        ++hits;
+        unlink(entry);
+        linkNewest(entry);
+        System.arraycopy(values, entry*width, out, 0, width);
+        return true;
+    }
+
+    public synchronized void put(long key, double[] distribution){
+        int entry = find(key);
+        if(entry != NONE){
+            unlink(entry);
+        } else {
+            if(size < capacity){
+                entry = size++;
+            } else {
+                entry = oldest;
+                unlink(entry);
+                removeFromBucket(entry);
+            }
+            keys[entry] = key;
+            final int bucket = bucketOf(key);
+            chain[entry] = buckets[bucket];
+            buckets[bucket] = entry;
+        }
+        linkNewest(entry);
+        System.arraycopy(distribution, 0, values, entry*width, width);
+    }
+
+    public synchronized void clear(){
+        Arrays.fill(buckets, NONE);
+        size = 0;
+        newest = NONE;
+        oldest = NONE;
+        hits = 0;
+        misses = 0;
+    }
+
+    public synchronized int size(){
+        return size;
+    }
+
+    public synchronized long getHits(){
+        return hits;
+    }
+
+    public synchronized long getMisses(){
+        return misses;
+    }
+
+    @Override
+    public synchronized String toString(){
+        return "ProbabilityCache " + size + "/" + capacity + " entries, " + hits + " hits, " + misses + " misses";
+    }
+
+    private int find(long key){
+        for(int entry = buckets[bucketOf(key)]; entry != NONE; entry = chain[entry]){
+            if(keys[entry] == key){
+                return entry;
+            }
+        }
+        return NONE;
+    }
+
+    private int bucketOf(long key){
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 32) & (buckets.length - 1);
+    }
+
+    private void removeFromBucket(int entry){
+        final int bucket = bucketOf(keys[entry]);
+        if(buckets[bucket] == entry){
+            buckets[bucket] = chain[entry];
+            return;
+        }
+        for(int ix = buckets[bucket]; ix != NONE; ix = chain[ix]){
+            if(chain[ix] == entry){
+                chain[ix] = chain[entry];
+                return;
+            }
+        }
+    }
+
+    private void unlink(int entry){
+        if(newer[entry] != NONE){
+            older[newer[entry]] = older[entry];
+        } else {
+            newest = older[entry];
+        }
+        if(older[entry] != NONE){
+            newer[older[entry]] = newer[entry];
+        } else {
+            oldest = newer[entry];
+        }
+    }
+
+    private void linkNewest(int entry){
+        newer[entry] = NONE;
+        older[entry] = newest;
+        if(newest != NONE){
+            newer[newest] = entry;
+        }
+        newest = entry;
+        if(oldest == NONE){
+            oldest = entry;
+        }
+    }
+}
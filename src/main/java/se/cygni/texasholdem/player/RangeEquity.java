@@ -0,0 +1,130 @@
+package se.cygni.texasholdem.player;
+
+/**
+ * Equity of one range of hands against another, both given as weights on the
+ * 1326 two card combinations.
+ *
+ * For every runout of the board all combinations in either range are evaluated
+ * in one batch, after which the two ranges are compared by table lookups only.
+ * With one card or less to come every runout is enumerated, otherwise runouts are sampled.
+ */
+public class RangeEquity {
+
+    public static final int RUNOUTS = 200;
+
+    private static final long DEFAULT_SEED = 0x4A4E6EL;
+
+    private RangeEquity(){}
+
+    /**
+     * @param hole My two cards
+     * @param board Community cards so far
+     * @param theirs Hands the opponent may hold
+     */
+    public static Equity compute(long hole, long board, HandRange theirs){
+        final HandRange mine = new HandRange();
+        for(int c = 0; c < HandRange.COMBOS; ++c){
+            mine.setWeight(c, 0.0);
+        }
+        mine.setWeight(HandRange.combo(hole), 1.0);
+        return compute(mine, board, theirs, RUNOUTS, new SplitMix64(DEFAULT_SEED ^ hole ^ board * 31));
+    }
+
+    /**
+     * @param mine Hands I may hold
+     * @param board Community cards so far
+     * @param theirs Hands the opponent may hold
+     * @param runouts Number of runouts to sample when two or more cards are to come
+     * @return Win/tie/loss fractions weighted by the ranges, pairs of hands sharing a card are left out.
+     */
+    public static Equity compute(HandRange mine, long board, HandRange theirs, int runouts, SplitMix64 random){
+        // Cards held in every one of my hands can not come on the board
+        long held = ~CardSet.EMPTY;
+        for(int c = 0; c < HandRange.COMBOS; ++c){
+            if(mine.getWeight(c) > 0.0 && (HandRange.cards(c) & board) == 0){
+                held &= HandRange.cards(c);
+            }
+        }
+        final long dead = board | held & CardSet.FULL_DECK;
+        final int missing = 5 - CardSet.size(board);
+
+        final Batch batch = new Batch();
+        final double[] counts = new double[3];
+        if(missing == 0){
+            showdown(mine, board, theirs, batch, counts);
+        } else if(missing == 1){
+            for(int card : ExactEquity.liveCards(dead)){
+                showdown(mine, board | 1L << card, theirs, batch, counts);
+            }
+        } else {
+            final IntDeck deck = new IntDeck(dead, random);
+            for(int r = 0; r < runouts; ++r){
+                deck.collect();
+                showdown(mine, board | deck.deal(missing), theirs, batch, counts);
+            }
+        }
+
+        final double total = counts[0] + counts[1] + counts[2];
+        if(total == 0.0){
+            return new Equity(0.0, 0.0, 0.0);
+        }
+        return new Equity(counts[0] / total, counts[1] / total, counts[2] / total);
+    }
+
+    private static void showdown(HandRange mine, long board, HandRange theirs, Batch batch, double[] counts){
+        // The batch: every hand either of us may hold, evaluated with this board
+        final int[] strengths = batch.strengths;
+        int n = 0;
+        for(int c = 0; c < HandRange.COMBOS; ++c){
+            final long cards = HandRange.cards(c);
+            strengths[c] = 0;
+            if((cards & board) == 0 && (mine.getWeight(c) > 0.0 || theirs.getWeight(c) > 0.0)){
+                batch.combos[n] = c;
+                batch.hands[n++] = cards;
+            }
+        }
+        HandEvaluator.evaluate(board, batch.hands, batch.evaluated, n);
+        for(int ix = 0; ix < n; ++ix){
+            strengths[batch.combos[ix]] = batch.evaluated[ix];
+        }
+
+        for(int m = 0; m < HandRange.COMBOS; ++m){
+            final double weight = mine.getWeight(m);
+            if(weight == 0.0 || strengths[m] == 0){
+                continue;
+            }
+            final long cards = HandRange.cards(m);
+            final int strength = strengths[m];
+            double win = 0.0;
+            double tie = 0.0;
+            double loss = 0.0;
+            for(int t = 0; t < HandRange.COMBOS; ++t){
+                final double w = theirs.getWeight(t);
+                if(w == 0.0 || strengths[t] == 0 || (HandRange.cards(t) & cards) != 0){
+                    continue;
+                }
+                if(strength > strengths[t]){
+                    win += w;
+                } else if(strength == strengths[t]){
+                    tie += w;
+                } else {
+                    loss += w;
+                }
+            }
+            counts[0] += weight * win;
+            counts[1] += weight * tie;
+            counts[2] += weight * loss;
+        }
+    }
+
+    /**
+     * Arrays reused for every runout.
+     */
+    private static class Batch {
+        final long[] hands = new long[HandRange.COMBOS];
+        final int[] combos = new int[HandRange.COMBOS];
+        final int[] evaluated = new int[HandRange.COMBOS];
+        /** Strength of every combination, 0 if not in either range or blocked by the board. */
+        final int[] strengths = new int[HandRange.COMBOS];
+    }
+}
@@ -0,0 +1,111 @@
+package se.cygni.texasholdem.player;
+
+/**
+ * Estimates of winning binned by value, separately for rounds won and lost, so the
+ * true and false positives of every threshold can be read after a single run.
+ * Ties are left out, as neither a win nor a loss. The curves of simulation shards
+ * are added bin by bin, so the curve of the whole run does not depend on the sharding.
+ */
+public class RocCurve {
+
+    /** Number of bins of estimates in [0, 1], the resolution of thresholds. */
+    public static final int BINS = 1000;
+    /** Thresholds between printed points of the curve, in bins. */
+    private static final int PRINT_STEP = 50;
+
+    private final long[] won = new long[BINS];
+    private final long[] lost = new long[BINS];
+    private long totalWon = 0;
+    private long totalLost = 0;
+
+    /**
+     * @param estimate Estimated chance of winning, in [0, 1]
+     * @param hasWon If the player won the round
+     */
+    public void add(double estimate, boolean hasWon){
+        if(hasWon){
+            won[Simulate.Histogram.intervalOf(estimate, BINS)]++;
+            totalWon++;
+        } else {
+            lost[Simulate.Histogram.intervalOf(estimate, BINS)]++;
+            totalLost++;
+        }
+    }
+
+    public void add(RocCurve other){
+        totalWon += other.totalWon;
+        totalLost += other.totalLost;
+        for(int ix=0; ix<BINS; ++ix){
+            won[ix] += other.won[ix];
+            lost[ix] += other.lost[ix];
+        }
+    }
+
+    /**
+     * @return Threshold of the bin, estimates at least this are predicted wins.
+     */
+    public static double threshold(int bin){
+        return bin / (double) BINS;
+    }
+
+    /**
+     * @return Fractions of won and lost rounds predicted as wins, for every
+     * threshold bin from 0 to BINS, where BINS predicts nothing as won.
+     */
+    private double[][] rates(){
+        final double[] truePositive = new double[BINS+1];
+        final double[] falsePositive = new double[BINS+1];
+        long tp = 0;
+        long fp = 0;
+        for(int ix = BINS-1; ix >= 0; --ix){
+            tp += won[ix];
+            fp += lost[ix];
+            truePositive[ix] = totalWon == 0 ? 0.0 : tp / (double) totalWon;
+            falsePositive[ix] = totalLost == 0 ? 0.0 : fp / (double) totalLost;
+        }
+        return new double[][]{truePositive, falsePositive};
+    }
+
+    /**
+     * @return Area under the curve, the chance that a random won round has a higher
+     * estimate than a random lost one. Rounds in the same bin count half.
+     */
+    public double auc(){
+        final double[][] rates = rates();
+        double area = 0.0;
+        for(int ix=0; ix<BINS; ++ix){
+            area += (rates[1][ix] - rates[1][ix+1]) * (rates[0][ix] + rates[0][ix+1]) / 2;
+        }
+        return area;
+    }
+
+    /**
+     * @return Bin of the threshold maximizing true positive minus false positive rate.
+     */
+    public int bestBin(){
+        final double[][] rates = rates();
+        int best = 0;
+        for(int ix=1; ix<=BINS; ++ix){
+            if(rates[0][ix] - rates[1][ix] > rates[0][best] - rates[1][best]){
+                best = ix;
+            }
+        }
+        return best;
+    }
+
+    public double bestThreshold(){
+        return threshold(bestBin());
+    }
+
+    public void summarize(){
+        final double[][] rates = rates();
+        final int best = bestBin();
+        System.out.println("\nROC, "+totalWon+" won and "+totalLost+" lost:");
+        System.out.println("AUC: "+auc());
+        System.out.println("Best threshold: "+threshold(best)+" \tTrue pos rate: "+rates[0][best]
+                +" \tFalse pos rate: "+rates[1][best]);
+        for(int ix = 0; ix<=BINS; ix += PRINT_STEP){
+            System.out.println("From "+threshold(ix)+": \t"+rates[0][ix]+" \t"+rates[1][ix]);
+        }
+    }
+}
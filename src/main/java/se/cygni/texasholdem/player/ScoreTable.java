@@ -0,0 +1,47 @@
+package se.cygni.texasholdem.player;
+
+import se.cygni.texasholdem.game.definitions.PokerHand;
+
+/**
+ * Generated by ScoreTableGenerator, do not edit.
+ *
+ * Number of hands of 7 cards making every PokerHand.
+ */
+public final class ScoreTable {
+
+    public static final long HANDS = 133784560L;
+
+    private ScoreTable(){}
+
+    /**
+     * @return Number of hands of 7 cards that make the hand.
+     */
+    public static long count(PokerHand h){
+        switch (h){
+            case ROYAL_FLUSH:
+                return 4324L;
+            case STRAIGHT_FLUSH:
+                return 37260L;
+            case FOUR_OF_A_KIND:
+                return 224848L;
+            case FULL_HOUSE:
+                return 3473184L;
+            case FLUSH:
+                return 4047644L;
+            case STRAIGHT:
+                return 6180020L;
+            case THREE_OF_A_KIND:
+                return 6461620L;
+            case TWO_PAIRS:
+                return 31433400L;
+            case ONE_PAIR:
+                return 58627800L;
+            case HIGH_HAND:
+                return 23294460L;
+            case NOTHING:
+                return 0L;
+            default:
+                return 0L;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package se.cygni.texasholdem.player;
+
+import se.cygni.texasholdem.game.definitions.PokerHand;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Builds @see ScoreTable by evaluating every one of the 133784560 hands of 7 cards.
+ * Hands are split by their two lowest cards into 1326 tasks, a few seconds on one core.
+ *
+ * Usage: ScoreTableGenerator [threads] [output file]
+ */
+public class ScoreTableGenerator {
+
+    public static void main(String[] args) throws Exception {
+        final int threads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        final String output = args.length > 1 ? args[1] : "src/main/java/se/cygni/texasholdem/player/ScoreTable.java";
+
+        final long start = System.currentTimeMillis();
+        final long[] counts = generate(threads);
+        write(counts, output);
+        System.out.println("Wrote "+output+" in "+(System.currentTimeMillis()-start)/1000+" s");
+    }
+
+    /**
+     * @return Number of 7 card hands of every PokerHand, indexed by ordinal.
+     */
+    public static long[] generate(int threads) throws Exception {
+        final int[] deck = ExactEquity.liveCards(CardSet.EMPTY);
+        final ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            final List<Future<long[]>> futures = new ArrayList<Future<long[]>>();
+            for(int a = 0; a < deck.length; ++a){
+                for(int b = a+1; b < deck.length; ++b){
+                    final int first = a;
+                    final int second = b;
+                    futures.add(pool.submit(new Callable<long[]>() {
+                        @Override
+                        public long[] call() {
+                            return count(deck, first, second);
+                        }
+                    }));
+                }
+            }
+            final long[] counts = new long[PokerHand.values().length];
+            for(Future<long[]> f : futures){
+                final long[] part = f.get();
+                for(int h = 0; h < counts.length; ++h){
+                    counts[h] += part[h];
+                }
+            }
+            return counts;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Counts the hands whose two lowest cards are deck[a] and deck[b].
+     */
+    private static long[] count(int[] deck, int a, int b){
+        final long[] counts = new long[PokerHand.values().length];
+        final long two = 1L << deck[a] | 1L << deck[b];
+        final int n = deck.length;
+        for(int c = b+1; c < n; ++c){
+            final long three = two | 1L << deck[c];
+            for(int d = c+1; d < n; ++d){
+                final long four = three | 1L << deck[d];
+                for(int e = d+1; e < n; ++e){
+                    final long five = four | 1L << deck[e];
+                    for(int f = e+1; f < n; ++f){
+                        final long six = five | 1L << deck[f];
+                        for(int g = f+1; g < n; ++g){
+                            counts[HandEvaluator.pokerHand(HandEvaluator.evaluate(six | 1L << deck[g])).ordinal()]++;
+                        }
+                    }
+                }
+            }
+        }
+        return counts;
+    }
+
+    private static void write(long[] counts, String output) throws IOException {
+        final Writer out = new OutputStreamWriter(new FileOutputStream(output), "UTF-8");
+        try {
+            out.write("package se.cygni.texasholdem.player;\n\n");
+            out.write("import se.cygni.texasholdem.game.definitions.PokerHand;\n\n");
+            out.write("/**\n");
+            out.write(" * Generated by ScoreTableGenerator, do not edit.\n");
+            out.write(" *\n");
+            out.write(" * Number of hands of 7 cards making every PokerHand.\n");
+            out.write(" */\n");
+            out.write("public final class ScoreTable {\n\n");
+            out.write("    public static final long HANDS = "+sum(counts)+"L;\n\n");
+            out.write("    private ScoreTable(){}\n\n");
+            out.write("    /**\n");
+            out.write("     * @return Number of hands of 7 cards that make the hand.\n");
+            out.write("     */\n");
+            out.write("    public static long count(PokerHand h){\n");
+            out.write("        switch (h){\n");
+            for(PokerHand h : PokerHand.values()){
+                out.write("            case "+h.name()+":\n");
+                out.write("                return "+counts[h.ordinal()]+"L;\n");
+            }
+            out.write("            default:\n");
+            out.write("                return 0L;\n");
+            out.write("        }\n");
+            out.write("    }\n");
+            out.write("}\n");
+        } finally {
+            out.close();
+        }
+    }
+
+    private static long sum(long[] counts){
+        long total = 0;
+        for(long c : counts){
+            total += c;
+        }
+        return total;
+    }
+}
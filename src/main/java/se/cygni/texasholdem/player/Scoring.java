@@ -2,9 +2,8 @@ package se.cygni.texasholdem.player;
 
 import se.cygni.texasholdem.game.Card;
 import se.cygni.texasholdem.game.definitions.PokerHand;
-import se.cygni.texasholdem.game.definitions.Rank;
-import se.cygni.texasholdem.game.definitions.Suit;
 
+import java.util.Arrays;
 import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
@@ -14,6 +13,32 @@ import java.util.Map;
  */
 public class Scoring {
 
+    /** Rank mask of TEN to ACE. */
+    private static final int ROYAL = 0x1F00;
+    /** Rank mask of the lowest straight, shift left to get the others. */
+    private static final int STRAIGHT = 0x1F;
+
+    private static final PokerHand[] HANDS = PokerHand.values();
+
+    private static final int CACHE_SIZE = 1 << 15;
+    private static final ProbabilityCache CACHE = newProbabilityCache();
+    /** Cache of the threads that set their own, @see Scoring#setThreadCache(ProbabilityCache) */
+    private static final ThreadLocal<ProbabilityCache> THREAD_CACHES = new ThreadLocal<ProbabilityCache>();
+
+    /** Scratch space, so that scoring does not allocate. */
+    private static final ThreadLocal<CardCounter> COUNTERS = new ThreadLocal<CardCounter>(){
+        @Override
+        protected CardCounter initialValue() {
+            return new CardCounter();
+        }
+    };
+    private static final ThreadLocal<double[]> DISTRIBUTIONS = new ThreadLocal<double[]>(){
+        @Override
+        protected double[] initialValue() {
+            return new double[HANDS.length];
+        }
+    };
+
     /**
      * @return Positive if a is better than b, 0 if ties, negative otherwise.
      */
@@ -21,6 +46,16 @@ public class Scoring {
         return a.getOrderValue() - b.getOrderValue();
     }
 
+    /**
+     * Compares full hand strengths from @see HandEvaluator#evaluate(long)
+     * which also take kickers into account, unlike comparing PokerHands.
+     *
+     * @return Positive if a is better than b, 0 if ties (split pot), negative otherwise.
+     */
+    public static int compareHands(int strengthA, int strengthB) {
+        return strengthA - strengthB;
+    }
+
     /**
      * Calculates and compares the chance of winning for user's hand and
      * the chance for all other players' hands, given the known cards.
@@ -30,6 +65,13 @@ public class Scoring {
      * @return Probability of winning in this specific round.
      */
     public static double chanceOfWinning(List<Card> myCardsAndCommunity, List<Card> community){
+        return chanceOfWinning(CardSet.of(myCardsAndCommunity), CardSet.of(community));
+    }
+
+    /**
+     * @see Scoring#chanceOfWinning(List, List)
+     */
+    public static double chanceOfWinning(long myCardsAndCommunity, long community){
         final double myChance = Scoring.chanceToWinAgainstUniform(myCardsAndCommunity);
         final double theirChance = Scoring.chanceToWinAgainstUniform(community);
 
@@ -43,12 +85,32 @@ public class Scoring {
      * @return Probability of winning against a uniform hand.
      */
     public static double chanceToWinAgainstUniform(List<Card> cards){
-        Map<PokerHand, Double> probMap = probabilities(cards);
-        Map<PokerHand, Double> scoreMap = Statistics.score();
+        return chanceToWinAgainstUniform(CardSet.of(cards));
+    }
+
+    public static double chanceToWinAgainstUniform(long cards){
+        return chanceToWinAgainstUniform(COUNTERS.get().count(cards));
+    }
+
+    /**
+     * @see Scoring#chanceOfWinning(List, List)
+     * @param mine Running count of my cards and the community cards
+     * @param community Running count of the community cards
+     */
+    public static double chanceOfWinning(CardCounter mine, CardCounter community){
+        final double myChance = Scoring.chanceToWinAgainstUniform(mine);
+        final double theirChance = Scoring.chanceToWinAgainstUniform(community);
+
+        return myChance / (myChance + theirChance);
+    }
+
+    public static double chanceToWinAgainstUniform(CardCounter counter){
+        final double[] distribution = DISTRIBUTIONS.get();
+        probabilities(counter, distribution);
 
         double prob = 0.0;
-        for(PokerHand h : PokerHand.values()){
-            prob += probMap.get(h)*scoreMap.get(h);
+        for(int h = 0; h < distribution.length; ++h){
+            prob += distribution[h]*Statistics.SCORE[h];
         }
         return prob;
     }
@@ -62,76 +124,262 @@ public class Scoring {
      * @return Probability distribution
      */
     public static Map<PokerHand, Double> probabilities(List<Card> cards){
-        final CardCounter counter = countCards(cards);
+        return probabilities(CardSet.of(cards));
+    }
+
+    /**
+     * @see Scoring#probabilities(List)
+     * @param cards All known cards as a CardSet
+     */
+    public static Map<PokerHand, Double> probabilities(long cards){
+        final double[] distribution = new double[HANDS.length];
+        probabilities(cards, distribution);
+
         final Map<PokerHand, Double> map = new EnumMap<PokerHand, Double>(PokerHand.class);
+        for(PokerHand h : HANDS){
+            map.put(h, distribution[h.ordinal()]);
+        }
+        return map;
+    }
 
-        for(PokerHand h : PokerHand.values()){
-            final double p = probabilityPokerHand(h, cards, counter);
-            map.put(h,p);
+    /**
+     * Same as @see Scoring#probabilities(List) without allocating anything.
+     *
+     * @param cards All known cards as a CardSet
+     * @param out Probability distribution indexed by PokerHand ordinal
+     */
+    public static void probabilities(long cards, double[] out){
+        cachedProbabilities(SuitIsomorphism.canonical(cards), null, out);
+    }
+
+    /**
+     * @param counter Counts of the known cards, ex kept up to date as cards are dealt.
+     * @param out Probability distribution indexed by PokerHand ordinal
+     */
+    public static void probabilities(CardCounter counter, double[] out){
+        cachedProbabilities(SuitIsomorphism.canonical(counter.cards), counter, out);
+    }
+
+    /**
+     * Computes a missing distribution on the canonical cards, never on the suits the
+     * cards happened to have. The sums over suits are then added in the same order
+     * for every member of the class, and the cached value does not depend on which
+     * member was seen first.
+     *
+     * @param counter Counts of the cards, used if they are the canonical cards, may be null
+     */
+    private static void cachedProbabilities(long canonical, CardCounter counter, double[] out){
+        ProbabilityCache cache = THREAD_CACHES.get();
+        if(cache == null){
+            cache = CACHE;
+        }
+        if(cache.get(canonical, out)){
+            return;
+        }
+        if(counter == null || counter.cards != canonical){
+            counter = COUNTERS.get().count(canonical);
+        }
+        lazyProbabilities(canonical, counter, out);
+        cache.put(canonical, out);
+    }
+
+    /**
+     * Cache of @see Scoring#probabilities() keyed by the suit isomorphic class of the cards.
+     */
+    public static ProbabilityCache getProbabilityCache(){
+        return CACHE;
+    }
+
+    /**
+     * @return Empty cache of the size of the shared one, ex for @see Scoring#setThreadCache(ProbabilityCache)
+     */
+    public static ProbabilityCache newProbabilityCache(){
+        return new ProbabilityCache(CACHE_SIZE, HANDS.length);
+    }
+
+    /**
+     * Makes the calling thread use its own cache instead of the shared one, so that it
+     * neither waits for the lock of the shared cache nor depends on what other threads put there.
+     *
+     * @param cache Null to go back to the shared cache
+     */
+    public static void setThreadCache(ProbabilityCache cache){
+        if(cache == null){
+            THREAD_CACHES.remove();
+        } else {
+            THREAD_CACHES.set(cache);
+        }
+    }
+
+    /**
+     * Computes the distribution without using the cache, every hand computed before
+     * the stronger ones are subtracted. @see Scoring#lazyProbabilities() gives the same result faster.
+     */
+    public static void probabilities(long cards, CardCounter counter, double[] out){
+        for(PokerHand h : HANDS){
+            out[h.ordinal()] = probabilityPokerHand(h, cards, counter);
         }
 
         // Make probabilities (more) disjoint!
-        decrement(map, PokerHand.HIGH_HAND, map.get(PokerHand.STRAIGHT));
+        decrement(out, PokerHand.HIGH_HAND, out[PokerHand.STRAIGHT.ordinal()]);
 
-        final double straightFlushUnion = map.get(PokerHand.STRAIGHT_FLUSH);
-        decrement(map, PokerHand.STRAIGHT, straightFlushUnion);
-        decrement(map, PokerHand.FLUSH, straightFlushUnion);
-        decrement(map, PokerHand.STRAIGHT_FLUSH, map.get(PokerHand.ROYAL_FLUSH));
+        final double straightFlushUnion = out[PokerHand.STRAIGHT_FLUSH.ordinal()];
+        decrement(out, PokerHand.STRAIGHT, straightFlushUnion);
+        decrement(out, PokerHand.FLUSH, straightFlushUnion);
+        decrement(out, PokerHand.STRAIGHT_FLUSH, out[PokerHand.ROYAL_FLUSH.ordinal()]);
 
-        final double house = map.get(PokerHand.FULL_HOUSE);
-        decrement(map, PokerHand.THREE_OF_A_KIND, house);
-        decrement(map, PokerHand.TWO_PAIRS, house);
-//        decrement(map, PokerHand.ONE_PAIR, 2*map.get(PokerHand.TWO_PAIRS));
-        decrement(map, PokerHand.ONE_PAIR, map.get(PokerHand.TWO_PAIRS));
+        final double house = out[PokerHand.FULL_HOUSE.ordinal()];
+        decrement(out, PokerHand.THREE_OF_A_KIND, house);
+        decrement(out, PokerHand.TWO_PAIRS, house);
+//        decrement(out, PokerHand.ONE_PAIR, 2*out[PokerHand.TWO_PAIRS.ordinal()]);
+        decrement(out, PokerHand.ONE_PAIR, out[PokerHand.TWO_PAIRS.ordinal()]);
 
         double probSum = 0.0;
         boolean surpassed = false;
-        for(PokerHand h : PokerHand.values()){
-            double p = map.get(h);
+        for(PokerHand h : HANDS){
+            double p = out[h.ordinal()];
 
             if(surpassed){
-//                System.out.println(h.getName()+" is surpassed!");
-                map.put(h, 0.0);
+                out[h.ordinal()] = 0.0;
                 p = 0.0;
             }
 
-//            System.out.println("Before, "+h.getName()+":\t"+p);
             probSum += p;
 
             if(Statistics.closeEnough(p-1.0)){
                 surpassed = true;
             }
         }
-//        System.out.println("Total probability: "+probSum+"\n");
 
-//        double TEST = 0.0;
         // Normalize the distribution (since is approximation)
-        for(PokerHand h : PokerHand.values()){
-//            System.out.println(map.get(h));
-            final double p = map.get(h) / probSum;
-//            System.out.println(p);
-//            TEST += p;
-            map.put(h, p);
+        for(int h = 0; h < out.length; ++h){
+            out[h] /= probSum;
+        }
+    }
 
-//            System.out.println("After, "+h.getName()+":\t"+map.get(h));
+    /**
+     * Same distribution as @see Scoring#probabilities(long, CardCounter, double[]) computed
+     * from the strongest hand to the weakest. Every hand is only decremented by stronger hands,
+     * so it stops at the first hand that is certain and all weaker hands are left at 0.
+     * Hands that can not be completed with the cards left to come are set to 0 without computing them.
+     */
+    public static void lazyProbabilities(long cards, CardCounter counter, double[] out){
+        Arrays.fill(out, 0.0);
+        final int unknownCards = 7 - CardSet.size(cards);
+
+        int mostOfAKind = 0;
+        int pairable = 0;
+        int tripable = 0;
+        for(int r = 0; r < CardSet.RANKS; ++r){
+            final int has = CardCounter.INIT_RANK - counter.rankLeft[r];
+            mostOfAKind = Math.max(mostOfAKind, has);
+            if(has + unknownCards >= 2){
+                ++pairable;
+            }
+            if(has + unknownCards >= 3){
+                ++tripable;
+            }
+        }
+        int royalMissing = CardSet.RANKS;
+        int straightFlushMissing = CardSet.RANKS;
+        for(int s = 0; s < CardSet.SUITS; ++s){
+            final int ranks = CardSet.suitRanks(cards, s);
+            royalMissing = Math.min(royalMissing, Integer.bitCount(~ranks & ROYAL));
+            straightFlushMissing = Math.min(straightFlushMissing, fewestMissingForStraight(ranks));
         }
-//        System.out.println("Sum after normalization: "+TEST);
+        final int straightMissing = fewestMissingForStraight(CardSet.ranks(cards));
 
+        double royal = 0.0;
+        double straightFlushUnion = 0.0;
+        double straightUnion = 0.0;
+        double house = 0.0;
+        double twoPairs = 0.0;
+        double probSum = 0.0;
+        for(PokerHand h : HANDS){
+            double p;
+            switch (h){
+                case ROYAL_FLUSH:
+                    royal = royalMissing <= unknownCards ? probabilityRoyalFlush(cards, counter) : 0.0;
+                    p = royal;
+                    break;
+                case STRAIGHT_FLUSH:
+                    straightFlushUnion = straightFlushMissing <= unknownCards ? probabilityStraightFlush(cards, counter) : 0.0;
+                    p = minus(straightFlushUnion, royal);
+                    break;
+                case FOUR_OF_A_KIND:
+                    p = mostOfAKind + unknownCards >= 4 ? probability_nOfAKind(4, cards, counter) : 0.0;
+                    break;
+                case FULL_HOUSE:
+                    house = tripable >= 1 && pairable >= 2 ? probability_fullHouse(cards, counter) : 0.0;
+                    p = house;
+                    break;
+                case FLUSH:
+                    p = minus(probabilityFlush(cards, counter), straightFlushUnion);
+                    break;
+                case STRAIGHT:
+                    straightUnion = straightMissing <= unknownCards ? probabilityStraight(cards, counter) : 0.0;
+                    p = minus(straightUnion, straightFlushUnion);
+                    break;
+                case THREE_OF_A_KIND:
+                    p = minus(mostOfAKind + unknownCards >= 3 ? probability_nOfAKind(3, cards, counter) : 0.0, house);
+                    break;
+                case TWO_PAIRS:
+                    twoPairs = minus(pairable >= 2 ? probability_twoPair(cards, counter) : 0.0, house);
+                    p = twoPairs;
+                    break;
+                case ONE_PAIR:
+                    p = minus(mostOfAKind + unknownCards >= 2 ? probability_nOfAKind(2, cards, counter) : 0.0, twoPairs);
+                    break;
+                case HIGH_HAND:
+                    p = minus(probabilityHighHand(cards, counter), straightUnion);
+                    break;
+                default:
+                    p = 0.0;
+            }
+            out[h.ordinal()] = p;
+            probSum += p;
 
-        return map;
+            if(Statistics.closeEnough(p-1.0)){
+                break;
+            }
+        }
+
+        // Normalize the distribution (since is approximation)
+        for(int h = 0; h < out.length; ++h){
+            out[h] /= probSum;
+        }
     }
 
-    private static void decrement(Map<PokerHand, Double> map, PokerHand h, double d){
-        double p = map.get(h) - d;
+    /**
+     * @return Fewest ranks missing from any of the straights (without the wheel) in the rank mask.
+     */
+    private static int fewestMissingForStraight(int ranks){
+        int fewest = 5;
+        for(int low = 0; low + 4 < CardSet.RANKS; ++low){
+            fewest = Math.min(fewest, Integer.bitCount(~ranks & STRAIGHT << low));
+        }
+        return fewest;
+    }
+
+    private static double minus(double p, double d){
+        return p - d < 0.0 ? 0.0 : p - d;
+    }
+
+    private static void decrement(double[] distribution, PokerHand h, double d){
+        double p = distribution[h.ordinal()] - d;
         if(p < 0.0){
             p = 0.0;
         }
-        map.put(h, p);
+        distribution[h.ordinal()] = p;
     }
 
 //        CurrentPlayState state
 //        List<Card> cards = state.getMyCardsAndCommunityCards();
     public static double probabilityPokerHand(PokerHand h, List<Card> cards, CardCounter counter){
+        return probabilityPokerHand(h, CardSet.of(cards), counter);
+    }
+
+    public static double probabilityPokerHand(PokerHand h, long cards, CardCounter counter){
         switch (h){
             case ROYAL_FLUSH:
                 return probabilityRoyalFlush(cards, counter);
@@ -162,24 +410,15 @@ public class Scoring {
     }
 
     public static double probabilityRoyalFlush(List<Card> cards, CardCounter counter) {
-        final int unknownCards = 7 - cards.size();
+        return probabilityRoyalFlush(CardSet.of(cards), counter);
+    }
 
-        // TODO optimize with matrix instead? ie if slow.
-        double prob = 0.0;
-        for(Suit s : Suit.values()){
-            boolean[] arr = new boolean[13];
-            for(Card c : cards){
-                if(c.getSuit().equals(s)){
-                    arr[c.getRank().ordinal()] = true;
-                }
-            }
+    public static double probabilityRoyalFlush(long cards, CardCounter counter) {
+        final int unknownCards = 7 - CardSet.size(cards);
 
-            int missing = 0;
-            for(int ix = 8; ix<13; ++ix){
-                if(! arr[ix]){
-                    ++missing;
-                }
-            }
+        double prob = 0.0;
+        for(int s = 0; s < CardSet.SUITS; ++s){
+            final int missing = Integer.bitCount(~CardSet.suitRanks(cards, s) & ROYAL);
             if(missing == 0){
                 return 1.0;
             }
@@ -189,31 +428,21 @@ public class Scoring {
     }
 
     public static double probabilityStraightFlush(List<Card> cards, CardCounter counter) {
-        final int unknownCards = 7 - cards.size();
+        return probabilityStraightFlush(CardSet.of(cards), counter);
+    }
 
-        double prob = 0.0;
-        for(Suit s : Suit.values()){
-            boolean[] arr = new boolean[13];
-            for(Card c : cards){
-                if(c.getSuit().equals(s)){
-                    arr[c.getRank().ordinal()] = true;
-                }
-            }
+    public static double probabilityStraightFlush(long cards, CardCounter counter) {
+        final int unknownCards = 7 - CardSet.size(cards);
 
-            int missing = 0;
-            for(int ix = 0; ix<13; ++ix){
-                if(! arr[ix]){
-                    ++missing;
-                }
-                if(ix >= 4){
-                    if(missing == 0){
-                        return 1.0;
-                    }
-                    prob += Statistics.atLeastOneOfSeveral(1, missing, unknownCards, counter.cardsLeft);
-                    if(! arr[ix-4]){
-                        --missing;
-                    }
+        double prob = 0.0;
+        for(int s = 0; s < CardSet.SUITS; ++s){
+            final int ranks = CardSet.suitRanks(cards, s);
+            for(int low = 0; low + 4 < CardSet.RANKS; ++low){
+                final int missing = Integer.bitCount(~ranks & STRAIGHT << low);
+                if(missing == 0){
+                    return 1.0;
                 }
+                prob += Statistics.atLeastOneOfSeveral(1, missing, unknownCards, counter.cardsLeft);
             }
         }
 
@@ -221,39 +450,35 @@ public class Scoring {
     }
 
     public static double probabilityStraight(List<Card> cards, CardCounter counter) {
-        final int unknownCards = 7 - cards.size();
+        return probabilityStraight(CardSet.of(cards), counter);
+    }
 
-        boolean[] arr = new boolean[13];
-        for(Card c : cards){
-            arr[c.getRank().ordinal()] = true;
-        }
+    public static double probabilityStraight(long cards, CardCounter counter) {
+        final int unknownCards = 7 - CardSet.size(cards);
+        final int ranks = CardSet.ranks(cards);
 
         double prob = 0.0;
-        int missing = 0;
-        for(int ix = 0; ix<13; ++ix){
-            if(! arr[ix]){
-                ++missing;
-            }
-            if(ix >= 4){
-                if(missing == 0){
-                    return 1.0;
-                }
-                prob += Statistics.atLeastOneOfSeveral(4, missing, unknownCards, counter.cardsLeft);
-                if(! arr[ix-4]){
-                    --missing;
-                }
+        for(int low = 0; low + 4 < CardSet.RANKS; ++low){
+            final int missing = Integer.bitCount(~ranks & STRAIGHT << low);
+            if(missing == 0){
+                return 1.0;
             }
+            prob += Statistics.atLeastOneOfSeveral(4, missing, unknownCards, counter.cardsLeft);
         }
         return prob;
     }
 
     public static double probabilityFlush(List<Card> cards, CardCounter counter){
-        final int unknownCards = 7 - cards.size();
+        return probabilityFlush(CardSet.of(cards), counter);
+    }
+
+    public static double probabilityFlush(long cards, CardCounter counter){
+        final int unknownCards = 7 - CardSet.size(cards);
 
         double flushProb = 0.0;
-        for(Suit s : Suit.values()){
-            double remaining = counter.suitMap.get(s);
-            double has = CardCounter.INIT_SUIT - remaining;
+        for(int s = 0; s < CardSet.SUITS; ++s){
+            final int remaining = counter.suitLeft[s];
+            final int has = CardCounter.INIT_SUIT - remaining;
             if( has >= 5){
                 return 1.0;
             }
@@ -269,11 +494,15 @@ public class Scoring {
      * @return Probability of not getting a single pair.
      */
     public static double probabilityHighHand(List<Card> cards, CardCounter counter) {
-        final int unknownCards = 7 - cards.size(); // k
-        final int ranksLeft = 13 - cards.size();   // n
+        return probabilityHighHand(CardSet.of(cards), counter);
+    }
+
+    public static double probabilityHighHand(long cards, CardCounter counter) {
+        final int unknownCards = 7 - CardSet.size(cards); // k
+        final int ranksLeft = 13 - CardSet.size(cards);   // n
 
-        for(Rank r : Rank.values()){
-            if( counter.rankMap.get(r) < CardCounter.INIT_RANK-1 ){
+        for(int r = 0; r < CardSet.RANKS; ++r){
+            if( counter.rankLeft[r] < CardCounter.INIT_RANK-1 ){
                 // There is a pair already
                 return 0.0;
             }
@@ -288,14 +517,18 @@ public class Scoring {
     }
 
     public static double probability_nOfAKind(final int n, final List<Card> cards, final CardCounter counter){
-        final int unknownCards = 7 - cards.size();
+        return probability_nOfAKind(n, CardSet.of(cards), counter);
+    }
+
+    public static double probability_nOfAKind(final int n, final long cards, final CardCounter counter){
+        final int unknownCards = 7 - CardSet.size(cards);
 
         double prob = 0.0;
-        for(Rank r : Rank.values()){
-            final double numInDeck = counter.rankMap.get(r);
-            final double hasDrawn = CardCounter.INIT_RANK - numInDeck;
+        for(int r = 0; r < CardSet.RANKS; ++r){
+            final int numInDeck = counter.rankLeft[r];
+            final int hasDrawn = CardCounter.INIT_RANK - numInDeck;
 
-            if( Statistics.closeEnough(hasDrawn - n)){
+            if( hasDrawn == n ){
                 return 1.0;
             }
             if( hasDrawn > n ){
@@ -308,12 +541,16 @@ public class Scoring {
     }
 
     public static double probability_twoPair(final List<Card> cards, final CardCounter counter){
-        final int unknownCards = 7 - cards.size();
+        return probability_twoPair(CardSet.of(cards), counter);
+    }
+
+    public static double probability_twoPair(final long cards, final CardCounter counter){
+        final int unknownCards = 7 - CardSet.size(cards);
         double mainProb = 0.0;
 
-        for(Rank i : Rank.values()){
-            final double iLeft = counter.rankMap.get(i);
-            final double iHave = CardCounter.INIT_RANK - iLeft;
+        for(int i = 0; i < CardSet.RANKS; ++i){
+            final int iLeft = counter.rankLeft[i];
+            final int iHave = CardCounter.INIT_RANK - iLeft;
 
             double iProb = 0.0;
             if(iHave >= 2.0){
@@ -322,12 +559,9 @@ public class Scoring {
                 iProb = Statistics.drawAtLeast(2.0-iHave, unknownCards, iLeft, counter.cardsLeft - iLeft);
             }
 
-            for(Rank j : Rank.values()){
-                if(i.ordinal() <= j.ordinal()){
-                    continue;
-                }
-                final double jLeft = counter.rankMap.get(j);
-                final double jHave = CardCounter.INIT_RANK - jLeft;
+            for(int j = 0; j < i; ++j){
+                final int jLeft = counter.rankLeft[j];
+                final int jHave = CardCounter.INIT_RANK - jLeft;
 
                 double jProb = 0.0;
                 if(jHave >= 2.0){
@@ -348,12 +582,16 @@ public class Scoring {
     }
 
     public static double probability_fullHouse(final List<Card> cards, final CardCounter counter){
-        final int unknownCards = 7 - cards.size();
+        return probability_fullHouse(CardSet.of(cards), counter);
+    }
+
+    public static double probability_fullHouse(final long cards, final CardCounter counter){
+        final int unknownCards = 7 - CardSet.size(cards);
         double mainProb = 0.0;
 
-        for(Rank i : Rank.values()){
-            final double iLeft = counter.rankMap.get(i);
-            final double iHave = CardCounter.INIT_RANK - iLeft;
+        for(int i = 0; i < CardSet.RANKS; ++i){
+            final int iLeft = counter.rankLeft[i];
+            final int iHave = CardCounter.INIT_RANK - iLeft;
 
             double iProb = 0.0;
             if(iHave >= 2.0){
@@ -362,12 +600,12 @@ public class Scoring {
                 iProb = Statistics.drawAtLeast(2.0-iHave, unknownCards, iLeft, counter.cardsLeft - iLeft);
             }
 
-            for(Rank j : Rank.values()){
-                if(i.equals(j)){
+            for(int j = 0; j < CardSet.RANKS; ++j){
+                if(i == j){
                     continue;
                 }
-                final double jLeft = counter.rankMap.get(j);
-                final double jHave = CardCounter.INIT_RANK - jLeft;
+                final int jLeft = counter.rankLeft[j];
+                final int jHave = CardCounter.INIT_RANK - jLeft;
 
                 double jProb = 0.0;
                 if(jHave >= 3.0){
@@ -389,42 +627,76 @@ public class Scoring {
 
 
 
+    /**
+     * Number of cards of every rank and suit that are not yet known.
+     */
     protected static class CardCounter{
-        public final static double INIT_SUIT = 13.0;
-        public final static double INIT_RANK = 4.0;
+        public final static int INIT_SUIT = 13;
+        public final static int INIT_RANK = 4;
 
-        private final Map<Rank,Double> rankMap = new EnumMap<Rank, Double>(Rank.class);
-        private final Map<Suit,Double> suitMap = new EnumMap<Suit, Double>(Suit.class);
-        private double cardsLeft = 13*4;
+        private final int[] rankLeft = new int[CardSet.RANKS];
+        private final int[] suitLeft = new int[CardSet.SUITS];
+        private int cardsLeft;
+        private long cards;
 
         public CardCounter(){
-            for(Rank r : Rank.values()){
-                rankMap.put(r, INIT_RANK);
+            reset();
+        }
+
+        public CardCounter reset(){
+            Arrays.fill(rankLeft, INIT_RANK);
+            Arrays.fill(suitLeft, INIT_SUIT);
+            cardsLeft = CardSet.RANKS * CardSet.SUITS;
+            cards = CardSet.EMPTY;
+            return this;
+        }
+
+        /**
+         * Resets and removes the cards.
+         */
+        public CardCounter count(long cards){
+            reset();
+            for(long rest = cards; rest != 0; rest &= rest-1){
+                add(Long.numberOfTrailingZeros(rest));
             }
-            for(Suit s : Suit.values()){
-                suitMap.put(s, INIT_SUIT);
+            return this;
+        }
+
+        /**
+         * Removes one more card, given by its CardSet index.
+         */
+        public void add(int index){
+            if((cards & 1L << index) != 0){
+                return;
             }
+            cards |= 1L << index;
+            decrRank(CardSet.rankOf(index));
+            decrSuit(CardSet.suitOf(index));
+        }
+
+        /**
+         * @return The cards counted so far.
+         */
+        public long getCards(){
+            return cards;
         }
 
-        public void decrRank(Rank r){
-            double a = rankMap.get(r);
-            rankMap.put(r, a-1);
+        public void decrRank(int rank){
+            rankLeft[rank]--;
             cardsLeft--;
         }
 
-        public void decrSuit(Suit s){
-            double a = suitMap.get(s);
-            suitMap.put(s, a-1);
+        public void decrSuit(int suit){
+            suitLeft[suit]--;
             cardsLeft--;
         }
     }
 
     protected static CardCounter countCards(List<Card> cards){
-        CardCounter counter = new CardCounter();
-        for(Card c : cards){
-            counter.decrRank(c.getRank());
-            counter.decrSuit(c.getSuit());
-        }
-        return counter;
+        return countCards(CardSet.of(cards));
+    }
+
+    protected static CardCounter countCards(long cards){
+        return new CardCounter().count(cards);
     }
 }
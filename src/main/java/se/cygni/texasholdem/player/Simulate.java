@@ -1,179 +1,429 @@
 package se.cygni.texasholdem.player;
 
-import se.cygni.texasholdem.game.Card;
-import se.cygni.texasholdem.game.Deck;
-import se.cygni.texasholdem.game.util.PokerHandUtil;
-
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Created by HalfLeif on 2015-04-22.
  */
 public class Simulate {
 
-    private List<Card> playerA;
-    private List<Card> playerB;
-    private List<Card> community;
+    /** Hole cards of every seat and the community cards, as CardSets. */
+    private final long[] holes;
+    private long community;
+    private final int[] strengths;
+    private final IntDeck deck;
+    private final EquityEstimator estimator;
 
     private final static double LIMIT = 0.6;
     private static final int FIELDS = 50;
 
-    private int round = 0;
+    public static final int MIN_PLAYERS = 2;
+    public static final int MAX_PLAYERS = 10;
 
-    private final double[][] estimatesA;
-    private final double[][] estimatesB;
-    private final int[] playerAWon;
-    private final PositiveCounter[] positiveCounters;
+    /** Rounds played by one Simulate in @see Simulate#runSimulation(int, int, int, long, EquityEstimator) */
+    private static final int SHARD_ROUNDS = 1 << 16;
+    /** Shards between intermediate summaries. */
+    private static final int REPORT_SHARDS = 16;
 
-    private Simulate(int rounds){
-        estimatesA = new double[4][rounds];
-        estimatesB = new double[4][rounds];
-        playerAWon = new int[rounds];
-        positiveCounters = new PositiveCounter[4];
-        for(int ix=0; ix<4; ++ix){
-            positiveCounters[ix] = new PositiveCounter();
-        }
+    /** Estimates of the round being played, by seat and street. */
+    private final double[][] estimates;
+
+    /** Results of all rounds played, updated as every round finishes. */
+    private final Summary summary;
+
+    private Simulate(int players, long seed, EquityEstimator estimator){
+        holes = new long[players];
+        strengths = new int[players];
+        estimates = new double[players][4];
+        summary = new Summary(players);
+        deck = new IntDeck(new SplitMix64(seed));
+        this.estimator = estimator;
     }
 
+    /**
+     * Usage: Simulate [rounds] [threads] [seed] [estimator, @see EquityEstimators#byName(String)] [players]
+     */
     public static void main(String[] args){
-        runSimulation(100000);
+        final int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+        final int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        final long seed = args.length > 2 ? Long.parseLong(args[2]) : System.nanoTime();
+        final EquityEstimator estimator = args.length > 3 ? EquityEstimators.byName(args[3]) : EquityEstimators.SCORING;
+        final int players = args.length > 4 ? Integer.parseInt(args[4]) : 2;
+        runSimulation(rounds, players, threads, seed, estimator);
     }
 
     public static void runSimulation(int rounds){
-        Simulate s = new Simulate(rounds);
-        for(int ix=0; ix<rounds; ++ix){
-            s.oneRound();
-        }
-        s.summary();
+        runSimulation(rounds, Runtime.getRuntime().availableProcessors(), System.nanoTime());
     }
 
-    public void summary(){
-        System.out.println("Played for "+round+" rounds.");
-        System.out.println("LIMIT: "+LIMIT);
-
-        double aWon = 0;
-        double bWon = 0;
-        double ties = 0;
-
-        double totalA = 0.0;
-        double totalB = 0.0;
-        for(int ix=0; ix<round; ++ix){
-            double avgA = 0.0;
-            double avgB = 0.0;
-            for(int jx = 0; jx < 4; ++jx){
-                final double estA = estimatesA[jx][ix];
-                final double estB = estimatesB[jx][ix];
-                final PositiveCounter pc = this.positiveCounters[jx];
-                avgA += estA;
-                avgB += estB;
-
-                if(playerAWon[ix] > 0){
-                    pc.addStats(true, estA);
-                    pc.addStats(false, estB);
-                } else if(playerAWon[ix] < 0) {
-                    pc.addStats(false, estA);
-                    pc.addStats(true, estB);
-                } else {
-                    pc.tie(estA);
-                    pc.tie(estB);
-                }
-            }
-            avgA /= 4;
-            avgB /= 4;
-            totalA += avgA;
-            totalB += avgB;
+    /**
+     * Plays the rounds in shards of fixed size on several threads. Every shard has its own
+     * seed and its results are added in shard order, so a seed gives the same summary
+     * whatever the number of threads.
+     */
+    public static Summary runSimulation(int rounds, int threads, final long seed){
+        return runSimulation(rounds, threads, seed, EquityEstimators.SCORING);
+    }
 
-            if(playerAWon[ix] > 0){
-                aWon++;
-            } else if(playerAWon[ix] < 0) {
-                bWon++;
-            } else {
-                ++ties;
-            }
+    /**
+     * @param estimator Estimates the chances of both players on every street
+     */
+    public static Summary runSimulation(int rounds, int threads, final long seed, EquityEstimator estimator){
+        return runSimulation(rounds, 2, threads, seed, estimator);
+    }
 
-        }
-        System.out.println("A expected "+totalA/round);
-        System.out.println("B expected "+totalB/round);
-        System.out.println(" ");
-        System.out.println("A won "+aWon/round);
-        System.out.println("B won "+bWon/round);
-        System.out.println("Tied  "+ties/round);
-        System.out.println(" ");
+    /**
+     * @param players Number of seats dealt in every round, between 2 and 10
+     */
+    public static Summary runSimulation(int rounds, int players, int threads, final long seed, EquityEstimator estimator){
+        return runSimulation(rounds, players, threads, seed, estimator, SHARD_ROUNDS);
+    }
 
-        for(int ix=0; ix<4; ++ix){
-            this.positiveCounters[ix].summarize();
+    static Summary runSimulation(int rounds, final int players, int threads, final long seed,
+                                 final EquityEstimator estimator, int shardRounds){
+        if(players < MIN_PLAYERS || players > MAX_PLAYERS){
+            throw new IllegalArgumentException("Players must be between "+MIN_PLAYERS+" and "+MAX_PLAYERS+", was "+players);
         }
-
-        for(int ix=0; ix<4; ++ix){
-            new Histogram(estimatesA[ix]).summarize();
+        final ExecutorService pool = Executors.newFixedThreadPool(threads);
+        final Summary total = new Summary(players);
+        try {
+            final List<Future<Summary>> futures = new ArrayList<Future<Summary>>();
+            for(int first=0; first<rounds; first+=shardRounds){
+                final int shard = first / shardRounds;
+                final int size = Math.min(shardRounds, rounds-first);
+                futures.add(pool.submit(new Callable<Summary>() {
+                    @Override
+                    public Summary call() {
+                        // A cache of its own, so the shard neither contends for nor depends on the shared one
+                        Scoring.setThreadCache(Scoring.newProbabilityCache());
+                        try {
+                            final Simulate s = new Simulate(players, SplitMix64.seed(seed, shard), estimator);
+                            for(int ix=0; ix<size; ++ix){
+                                s.oneRound();
+                            }
+                            return s.summary;
+                        } finally {
+                            Scoring.setThreadCache(null);
+                        }
+                    }
+                }));
+            }
+            for(int ix=0; ix<futures.size(); ++ix){
+                total.add(futures.get(ix).get());
+                // Drops the shard's summary, it is counted in the total
+                futures.set(ix, null);
+                if((ix+1) % REPORT_SHARDS == 0 && ix+1 < futures.size()){
+                    total.printProgress();
+                }
+            }
+        } catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e){
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            pool.shutdown();
         }
+        total.print();
+        return total;
+    }
+
+    public void summary(){
+        summary.print();
     }
 
     public void oneRound(){
-        Deck deck = Deck.getShuffledDeck();
+        deck.collect();
 
-        playerA = new ArrayList<Card>();
-        playerB = new ArrayList<Card>();
-        community = new ArrayList<Card>();
+        final int players = holes.length;
+        for(int seat = 0; seat<players; ++seat){
+            holes[seat] = CardSet.EMPTY;
+        }
+        community = CardSet.EMPTY;
 
         for(int ix = 0; ix<2; ++ix){
-            playerA.add(deck.getNextCard());
-            playerB.add(deck.getNextCard());
+            for(int seat = 0; seat<players; ++seat){
+                holes[seat] |= deck.dealCard();
+            }
         }
         estimateWinChance(0);
 
-        for(int ix = 0; ix<3; ++ix){
-            dealOneCardToCommunity(deck);
-        }
+        community |= deck.deal(3);
         estimateWinChance(1);
 
-        dealOneCardToCommunity(deck);
+        community |= deck.dealCard();
         estimateWinChance(2);
 
-        dealOneCardToCommunity(deck);
+        community |= deck.dealCard();
         estimateWinChance(3);
 
-        PokerHandUtil utilA = new PokerHandUtil(playerA);
-        PokerHandUtil utilB = new PokerHandUtil(playerB);
+        HandEvaluator.evaluate(community, holes, strengths, players);
 
-        playerAWon[round] = Scoring.compareHands(utilA.getBestHand().getPokerHand(), utilB.getBestHand().getPokerHand());
+        summary.record(estimates, strengths);
+    }
 
-        ++round;
+    private void estimateWinChance(int part){
+        final int opponents = holes.length - 1;
+        for(int seat = 0; seat<holes.length; ++seat){
+            estimates[seat][part] = estimator.estimate(holes[seat], community, opponents);
+        }
     }
 
-    private void dealOneCardToCommunity(Deck deck){
-        Card c = deck.getNextCard();
-        playerA.add(c);
-        playerB.add(c);
-        community.add(c);
+    private static char seatName(int seat){
+        return (char) ('A' + seat);
     }
 
-    private void estimateWinChance(int part){
-        estimatesA[part][round] = Scoring.chanceOfWinning(playerA, community);
-        estimatesB[part][round] = Scoring.chanceOfWinning(playerB, community);
+    /**
+     * Results of a number of rounds in constant memory, updated round by round.
+     * Shards add theirs together.
+     */
+    public static class Summary{
+        private final int players;
+        private long rounds = 0;
+        private long ties = 0;
+        /** Rounds won alone, by seat. */
+        private final long[] won;
+        /** Sum of the mean estimate of every round, by seat. */
+        private final double[] totals;
+        /** Sum of the shares of the pot won, by seat. */
+        private final double[] shares;
+        /** Sum of the estimates of seat A by street. */
+        private final double[] streetA = new double[4];
+        private final PositiveCounter[] positiveCounters = new PositiveCounter[4];
+        private final Histogram[] histograms = new Histogram[4];
+        /** Counters of every threshold, where positiveCounters only has LIMIT. */
+        private final RocCurve[] rocCurves = new RocCurve[4];
+        private final Calibration[] calibrations = new Calibration[4];
+
+        private Summary(int players){
+            this.players = players;
+            won = new long[players];
+            totals = new double[players];
+            shares = new double[players];
+            for(int ix=0; ix<4; ++ix){
+                positiveCounters[ix] = new PositiveCounter();
+                histograms[ix] = new Histogram();
+                rocCurves[ix] = new RocCurve();
+                calibrations[ix] = new Calibration();
+            }
+        }
+
+        /**
+         * @param estimates Estimate of every seat by street
+         * @param strengths Strength of every seat's hand at showdown, @see HandEvaluator#evaluate(long)
+         */
+        private void record(double[][] estimates, int[] strengths){
+            ++rounds;
+            int best = strengths[0];
+            int winners = 1;
+            for(int seat = 1; seat < players; ++seat){
+                final int cmp = Scoring.compareHands(strengths[seat], best);
+                if(cmp > 0){
+                    best = strengths[seat];
+                    winners = 1;
+                } else if(cmp == 0){
+                    ++winners;
+                }
+            }
+            if(winners > 1){
+                ties++;
+            }
+
+            for(int seat = 0; seat < players; ++seat){
+                final double[] est = estimates[seat];
+                final boolean winner = Scoring.compareHands(strengths[seat], best) == 0;
+                final double share = winner ? 1.0 / winners : 0.0;
+                shares[seat] += share;
+                if(winner && winners == 1){
+                    won[seat]++;
+                }
+
+                double avg = 0.0;
+                for(int jx = 0; jx < 4; ++jx){
+                    final double e = est[jx];
+                    avg += e;
+                    calibrations[jx].add(e, share);
+                    if(winner && winners > 1){
+                        positiveCounters[jx].tie(e);
+                    } else {
+                        positiveCounters[jx].addStats(winner, e);
+                        rocCurves[jx].add(e, winner);
+                    }
+                }
+                totals[seat] += avg / 4;
+            }
+
+            for(int jx = 0; jx < 4; ++jx){
+                streetA[jx] += estimates[0][jx];
+                histograms[jx].add(estimates[0][jx]);
+            }
+        }
+
+        private void add(Summary other){
+            if(other.players != players){
+                throw new IllegalArgumentException("Can not add "+other.players+" players to "+players);
+            }
+            rounds += other.rounds;
+            ties += other.ties;
+            for(int seat = 0; seat < players; ++seat){
+                won[seat] += other.won[seat];
+                totals[seat] += other.totals[seat];
+                shares[seat] += other.shares[seat];
+            }
+            for(int ix=0; ix<4; ++ix){
+                streetA[ix] += other.streetA[ix];
+                positiveCounters[ix].add(other.positiveCounters[ix]);
+                histograms[ix].add(other.histograms[ix]);
+                rocCurves[ix].add(other.rocCurves[ix]);
+                calibrations[ix].add(other.calibrations[ix]);
+            }
+        }
+
+        public int getPlayers(){
+            return players;
+        }
+
+        /**
+         * @return Fraction of rounds the seat won alone.
+         */
+        public double getWon(int seat){
+            return won[seat] / (double) rounds;
+        }
+
+        /**
+         * @return Mean share of the pot won by the seat, ties split.
+         */
+        public double getShare(int seat){
+            return shares[seat] / rounds;
+        }
+
+        /**
+         * @return Mean estimate of the seat over all streets.
+         */
+        public double getExpected(int seat){
+            return totals[seat] / rounds;
+        }
+
+        public double getWonA(){
+            return getWon(0);
+        }
+
+        public double getExpectedA(){
+            return getExpected(0);
+        }
+
+        /**
+         * @param street 0 preflop, 1 flop, 2 turn, 3 river
+         */
+        public RocCurve getRocCurve(int street){
+            return rocCurves[street];
+        }
+
+        /**
+         * @param street 0 preflop, 1 flop, 2 turn, 3 river
+         */
+        public Calibration getCalibration(int street){
+            return calibrations[street];
+        }
+
+        /**
+         * One line of the results so far.
+         */
+        private void printProgress(){
+            final StringBuilder s = new StringBuilder();
+            s.append("After ").append(rounds).append(" rounds: A won ").append(getWonA())
+                    .append(", tied ").append(ties/(double)rounds).append(", A expected by street");
+            for(int ix=0; ix<4; ++ix){
+                s.append(' ').append(streetA[ix]/rounds);
+            }
+            System.out.println(s);
+        }
+
+        private void print(){
+            System.out.println("Played for "+rounds+" rounds.");
+            if(players > 2){
+                System.out.println("Players: "+players);
+            }
+            System.out.println("LIMIT: "+LIMIT);
+
+            for(int seat = 0; seat < players; ++seat){
+                System.out.println(seatName(seat)+" expected "+getExpected(seat));
+            }
+            for(int ix=0; ix<4; ++ix){
+                System.out.println("A expected on street "+ix+": "+streetA[ix]/rounds);
+            }
+            System.out.println(" ");
+            for(int seat = 0; seat < players; ++seat){
+                System.out.println(seatName(seat)+" won "+getWon(seat));
+            }
+            System.out.println("Tied  "+ties/(double)rounds);
+            if(players > 2){
+                for(int seat = 0; seat < players; ++seat){
+                    System.out.println(seatName(seat)+" share "+getShare(seat));
+                }
+            }
+            System.out.println(" ");
+
+            for(int ix=0; ix<4; ++ix){
+                positiveCounters[ix].summarize();
+            }
+
+            for(int ix=0; ix<4; ++ix){
+                histograms[ix].summarize();
+            }
+
+            for(int ix=0; ix<4; ++ix){
+                rocCurves[ix].summarize();
+            }
+
+            for(int ix=0; ix<4; ++ix){
+                calibrations[ix].summarize();
+            }
+        }
     }
 
     public static class Histogram{
 
-        private final int[] intervals = new int[FIELDS];
-        private final int total;
+        private final long[] intervals = new long[FIELDS];
+        private long total;
+
+        public Histogram(){
+        }
 
         public Histogram(double[] values){
-            total = values.length;
+            for(double value : values){
+                add(value);
+            }
+        }
+
+        public void add(double value){
+            intervals[intervalOf(value, FIELDS)]++;
+            total++;
+        }
 
-            for(int ix=0; ix<total; ++ix){
-                int y = intervalOf(values[ix]);
-                intervals[y]++;
+        public void add(Histogram other){
+            total += other.total;
+            for(int ix=0; ix<FIELDS; ++ix){
+                intervals[ix] += other.intervals[ix];
             }
         }
 
-        private int intervalOf(double d){
-            int big = (int) Math.floor(d*FIELDS);
-            if(big == FIELDS){
-                return FIELDS-1;
+        /**
+         * @return Index of the interval of d among count equal intervals of [0, 1],
+         * values outside [0, 1) in the first or last.
+         */
+        public static int intervalOf(double d, int count){
+            final int interval = (int) Math.floor(d*count);
+            if(interval >= count){
+                return count-1;
             }
-            return big;
+            return Math.max(interval, 0);
         }
 
         public void summarize(){
@@ -186,12 +436,12 @@ public class Simulate {
     }
 
     private static class PositiveCounter{
-        private int falsePositive = 0;
-        private int falseNegative = 0;
-        private int truePositive = 0;
-        private int trueNegative = 0;
-        private int expWinButGotTie = 0;
-        private int expLossButGotTie = 0;
+        private long falsePositive = 0;
+        private long falseNegative = 0;
+        private long truePositive = 0;
+        private long trueNegative = 0;
+        private long expWinButGotTie = 0;
+        private long expLossButGotTie = 0;
 
         private void summarize(){
 
@@ -204,6 +454,15 @@ public class Simulate {
             System.out.println(" ");
         }
 
+        private void add(PositiveCounter other){
+            falsePositive += other.falsePositive;
+            falseNegative += other.falseNegative;
+            truePositive += other.truePositive;
+            trueNegative += other.trueNegative;
+            expWinButGotTie += other.expWinButGotTie;
+            expLossButGotTie += other.expLossButGotTie;
+        }
+
         private void tie(double exp){
             if(exp >= LIMIT){
                 expWinButGotTie++;
@@ -0,0 +1,45 @@
+package se.cygni.texasholdem.player;
+
+/**
+ * Small, fast and seedable random generator (SplitMix64).
+ * Not thread safe, every thread or task should own one.
+ */
+public final class SplitMix64 {
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private long state;
+
+    public SplitMix64(long seed){
+        this.state = seed;
+    }
+
+    /**
+     * @return Seed for stream number ix derived from seed, independent of the other streams.
+     */
+    public static long seed(long seed, long ix){
+        return mix(seed + mix(ix + 1) * GOLDEN_GAMMA);
+    }
+
+    public long nextLong(){
+        state += GOLDEN_GAMMA;
+        return mix(state);
+    }
+
+    /**
+     * @return Uniform integer in [0, bound)
+     */
+    public int nextInt(int bound){
+        return (int) (((nextLong() >>> 32) * bound) >>> 32);
+    }
+
+    public double nextDouble(){
+        return (nextLong() >>> 11) * 0x1.0p-53;
+    }
+
+    private static long mix(long z){
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
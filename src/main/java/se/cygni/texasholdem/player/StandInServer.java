@@ -0,0 +1,450 @@
+package se.cygni.texasholdem.player;
+
+import org.jboss.netty.bootstrap.ServerBootstrap;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.jboss.netty.channel.*;
+import org.jboss.netty.channel.group.ChannelGroup;
+import org.jboss.netty.channel.group.DefaultChannelGroup;
+import org.jboss.netty.channel.socket.nio.NioServerSocketChannelFactory;
+import org.jboss.netty.handler.codec.frame.DelimiterBasedFrameDecoder;
+import org.jboss.netty.handler.codec.string.StringDecoder;
+import org.jboss.netty.handler.codec.string.StringEncoder;
+import org.jboss.netty.util.CharsetUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import se.cygni.texasholdem.communication.message.TexasMessage;
+import se.cygni.texasholdem.communication.message.TexasMessageParser;
+import se.cygni.texasholdem.communication.message.event.*;
+import se.cygni.texasholdem.communication.message.request.ActionRequest;
+import se.cygni.texasholdem.communication.message.request.RegisterForPlayRequest;
+import se.cygni.texasholdem.communication.message.response.ActionResponse;
+import se.cygni.texasholdem.communication.message.response.RegisterForPlayResponse;
+import se.cygni.texasholdem.game.Action;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Local stand-in for the game server, to load test PlayerClient and bots on the same
+ * Netty and JSON path as in production: point bots at localhost instead of poker.cygni.se.
+ *
+ * Every bot that registers for play is seated at the next table, and a table starts playing
+ * @see LocalTable hands on its own thread as soon as it is full. Requests and events are the
+ * texas-holdem-common messages encoded by TexasMessageParser, one per delimited frame.
+ * The time from sending an ActionRequest to receiving its ActionResponse is recorded
+ * per connection, answers later than the time limit are forced folds as on the server.
+ *
+ * Usage: StandInServer [port] [players per table] [hands per table] [time limit ms]
+ */
+public class StandInServer {
+
+    private static Logger log = LoggerFactory.getLogger(StandInServer.class);
+
+    /**
+     * Separates the messages on the wire, as in the client's frame decoder. Kept here and
+     * checked against PlayerClient by @see StandInServerTest#clientFramesWithTheServerDelimiter
+     */
+    public static final String DELIMITER = "_-^emil^-_";
+    private static final int MAX_FRAME_LENGTH = 1 << 20;
+
+    private static final long SMALL_BLIND = 5;
+    private static final long BIG_BLIND = 10;
+    private static final long STARTING_CHIPS = 1000;
+    /** Longest wait in stop() for the tables to finish their hands. */
+    private static final long STOP_WAIT_MILLIS = 10000;
+
+    private final int port;
+    private final int playersPerTable;
+    private final long handsPerTable;
+    private final long timeLimitMillis;
+
+    private final ChannelGroup channels = new DefaultChannelGroup("stand-in-server");
+    private final ExecutorService tables = Executors.newCachedThreadPool();
+    private final AtomicInteger tableCount = new AtomicInteger();
+    private final List<RemotePlayer> waiting = new ArrayList<RemotePlayer>();
+    private final List<RemotePlayer> connections = new ArrayList<RemotePlayer>();
+    private volatile boolean stopping = false;
+    private ServerBootstrap bootstrap;
+    private Channel serverChannel;
+
+    public StandInServer(int port, int playersPerTable, long handsPerTable, long timeLimitMillis){
+        this.port = port;
+        this.playersPerTable = playersPerTable;
+        this.handsPerTable = handsPerTable;
+        this.timeLimitMillis = timeLimitMillis;
+    }
+
+    public static void main(String[] args) throws Exception {
+        final int port = args.length > 0 ? Integer.parseInt(args[0]) : 4711;
+        final int players = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+        final long hands = args.length > 2 ? Long.parseLong(args[2]) : 1000;
+        final long timeLimit = args.length > 3 ? Long.parseLong(args[3]) : 1000;
+
+        final StandInServer server = new StandInServer(port, players, hands, timeLimit);
+        server.start();
+        Runtime.getRuntime().addShutdownHook(new Thread() {
+            @Override
+            public void run() {
+                server.stop();
+            }
+        });
+        log.info("Stand-in server listening on port {}, {} players per table", port, players);
+    }
+
+    public void start(){
+        bootstrap = new ServerBootstrap(new NioServerSocketChannelFactory(
+                Executors.newCachedThreadPool(), Executors.newCachedThreadPool()));
+        bootstrap.setOption("child.tcpNoDelay", true);
+        bootstrap.setPipelineFactory(new ChannelPipelineFactory() {
+            @Override
+            public ChannelPipeline getPipeline() {
+                return Channels.pipeline(
+                        new DelimiterBasedFrameDecoder(MAX_FRAME_LENGTH, ChannelBuffers.copiedBuffer(DELIMITER, CharsetUtil.UTF_8)),
+                        new StringDecoder(CharsetUtil.UTF_8),
+                        new StringEncoder(CharsetUtil.UTF_8),
+                        new Handler());
+            }
+        });
+        serverChannel = bootstrap.bind(new InetSocketAddress(port));
+        channels.add(serverChannel);
+    }
+
+    /**
+     * @return Port listened on, picked by the system when started on port 0.
+     */
+    public int getPort(){
+        return ((InetSocketAddress) serverChannel.getLocalAddress()).getPort();
+    }
+
+    /**
+     * Lets the tables finish the hands they are playing, closes all connections once
+     * what was sent to them is written, prints the latencies of every connection and
+     * stops. Tables still playing after @see StandInServer#STOP_WAIT_MILLIS are
+     * interrupted, which forces folds until their hands end.
+     */
+    public void stop(){
+        stopping = true;
+        tables.shutdown();
+        try {
+            if(!tables.awaitTermination(STOP_WAIT_MILLIS, TimeUnit.MILLISECONDS)){
+                log.info("Tables still playing after {} ms, interrupting them", STOP_WAIT_MILLIS);
+                tables.shutdownNow();
+                tables.awaitTermination(STOP_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+            }
+        } catch (InterruptedException e){
+            tables.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        synchronized (connections){
+            for(RemotePlayer p : connections){
+                p.flush(STOP_WAIT_MILLIS);
+            }
+        }
+        channels.close().awaitUninterruptibly();
+        if(bootstrap != null){
+            bootstrap.releaseExternalResources();
+        }
+        report();
+    }
+
+    /**
+     * Prints the round trip times of every connection so far, and of all together.
+     */
+    public void report(){
+        final LatencyRecorder all = new LatencyRecorder();
+        synchronized (connections){
+            for(RemotePlayer p : connections){
+                System.out.println(p.name+": "+p.latency);
+                all.add(p.latency);
+            }
+            System.out.println(connections.size()+" connections, "+tableCount.get()+" tables: "+all);
+        }
+    }
+
+    /**
+     * @return Round trip times of all connections so far.
+     */
+    public LatencyRecorder getLatency(){
+        final LatencyRecorder all = new LatencyRecorder();
+        synchronized (connections){
+            for(RemotePlayer p : connections){
+                all.add(p.latency);
+            }
+        }
+        return all;
+    }
+
+    private void registered(RemotePlayer player){
+        final List<RemotePlayer> seated;
+        synchronized (connections){
+            connections.add(player);
+            waiting.add(player);
+            if(waiting.size() < playersPerTable){
+                return;
+            }
+            seated = new ArrayList<RemotePlayer>(waiting);
+            waiting.clear();
+        }
+        final int id = tableCount.incrementAndGet();
+        tables.submit(new Runnable() {
+            @Override
+            public void run() {
+                final LocalTable table = new LocalTable(SMALL_BLIND, BIG_BLIND, STARTING_CHIPS, id);
+                for(RemotePlayer p : seated){
+                    table.seat(p);
+                }
+                // Hand by hand, so that stop() ends the table between hands
+                for(long hand = 0; hand < handsPerTable && !stopping && !Thread.currentThread().isInterrupted(); ++hand){
+                    table.playHands(1);
+                }
+                for(RemotePlayer p : seated){
+                    p.onTableIsDone(new TableIsDoneEvent());
+                }
+                log.info("Table {} played {} hands", id, table.getHands());
+            }
+        });
+    }
+
+    private static String encode(TexasMessage message){
+        try {
+            return TexasMessageParser.encodeMessage(message) + DELIMITER;
+        } catch (Exception e){
+            throw new IllegalStateException("Could not encode "+message.getClass().getSimpleName(), e);
+        }
+    }
+
+    /**
+     * Reads the messages of one connection: registers the bot, then passes on its answers.
+     */
+    private class Handler extends SimpleChannelUpstreamHandler {
+
+        @Override
+        public void channelOpen(ChannelHandlerContext ctx, ChannelStateEvent e) {
+            channels.add(e.getChannel());
+        }
+
+        @Override
+        public void messageReceived(ChannelHandlerContext ctx, MessageEvent e) throws Exception {
+            final TexasMessage message = TexasMessageParser.decodeMessage((String) e.getMessage());
+            if(message instanceof ActionResponse){
+                final RemotePlayer player = (RemotePlayer) ctx.getAttachment();
+                if(player != null){
+                    player.responses.offer((ActionResponse) message);
+                }
+            } else if(message instanceof RegisterForPlayRequest){
+                final RegisterForPlayRequest request = (RegisterForPlayRequest) message;
+                final RemotePlayer player = new RemotePlayer(request.getName(), e.getChannel(), timeLimitMillis);
+                ctx.setAttachment(player);
+
+                final RegisterForPlayResponse response = new RegisterForPlayResponse();
+                response.setRequestId(request.getRequestId());
+                response.setSessionId(UUID.randomUUID().toString());
+                e.getChannel().write(encode(response));
+                registered(player);
+            } else {
+                log.debug("Ignoring {}", message == null ? null : message.getClass().getSimpleName());
+            }
+        }
+
+        @Override
+        public void channelClosed(ChannelHandlerContext ctx, ChannelStateEvent e) {
+            final RemotePlayer player = (RemotePlayer) ctx.getAttachment();
+            if(player != null){
+                player.connected = false;
+                // Not seated at a table that starts later
+                synchronized (connections){
+                    waiting.remove(player);
+                }
+                // Wakes a table waiting for an answer
+                player.responses.offer(new ActionResponse());
+            }
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, ExceptionEvent e) {
+            log.info("Closing connection: {}", e.getCause().getMessage());
+            e.getChannel().close();
+        }
+    }
+
+    /**
+     * A bot at the other end of a connection, played by a @see LocalTable as any other Player.
+     */
+    private static class RemotePlayer implements Player {
+        private final String name;
+        private final Channel channel;
+        private final long timeLimitNanos;
+        private final BlockingQueue<ActionResponse> responses = new LinkedBlockingQueue<ActionResponse>();
+        private final LatencyRecorder latency = new LatencyRecorder();
+        private volatile boolean connected = true;
+        private volatile ChannelFuture lastWrite;
+
+        private RemotePlayer(String name, Channel channel, long timeLimitMillis){
+            this.name = name;
+            this.channel = channel;
+            this.timeLimitNanos = TimeUnit.MILLISECONDS.toNanos(timeLimitMillis);
+        }
+
+        private void send(TexasMessage message){
+            if(connected){
+                lastWrite = channel.write(encode(message));
+            }
+        }
+
+        /**
+         * Waits until the messages sent so far are written, so closing does not drop them.
+         */
+        private void flush(long millis){
+            final ChannelFuture write = lastWrite;
+            if(write != null){
+                write.awaitUninterruptibly(millis);
+            }
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Sends the request and waits for its answer until the time limit.
+         *
+         * @return Null, a forced fold, if no answer came in time. Only then is it
+         * counted as a timeout, not when the connection drops or the table is stopped.
+         */
+        @Override
+        public Action actionRequired(ActionRequest request) {
+            if(!connected){
+                return null;
+            }
+            final String requestId = UUID.randomUUID().toString();
+            request.setRequestId(requestId);
+            // Late answers to earlier requests
+            responses.clear();
+
+            final long start = System.nanoTime();
+            send(request);
+            try {
+                for(long left = timeLimitNanos; left > 0; left = start + timeLimitNanos - System.nanoTime()){
+                    final ActionResponse response = responses.poll(left, TimeUnit.NANOSECONDS);
+                    if(response == null){
+                        break;
+                    }
+                    if(!connected){
+                        return null;
+                    }
+                    if(requestId.equals(response.getRequestId())){
+                        latency.record(System.nanoTime() - start);
+                        return response.getAction();
+                    }
+                }
+            } catch (InterruptedException e){
+                Thread.currentThread().interrupt();
+                return null;
+            }
+            latency.timeout();
+            return null;
+        }
+
+        @Override
+        public void onPlayIsStarted(PlayIsStartedEvent event) {
+            send(event);
+        }
+
+        @Override
+        public void onTableChangedStateEvent(TableChangedStateEvent event) {
+            send(event);
+        }
+
+        @Override
+        public void onYouHaveBeenDealtACard(YouHaveBeenDealtACardEvent event) {
+            send(event);
+        }
+
+        @Override
+        public void onCommunityHasBeenDealtACard(CommunityHasBeenDealtACardEvent event) {
+            send(event);
+        }
+
+        @Override
+        public void onPlayerBetBigBlind(PlayerBetBigBlindEvent event) {
+            send(event);
+        }
+
+        @Override
+        public void onPlayerBetSmallBlind(PlayerBetSmallBlindEvent event) {
+            send(event);
+        }
+
+        @Override
+        public void onPlayerFolded(PlayerFoldedEvent event) {
+            send(event);
+        }
+
+        @Override
+        public void onPlayerForcedFolded(PlayerForcedFoldedEvent event) {
+            send(event);
+        }
+
+        @Override
+        public void onPlayerCalled(PlayerCalledEvent event) {
+            send(event);
+        }
+
+        @Override
+        public void onPlayerRaised(PlayerRaisedEvent event) {
+            send(event);
+        }
+
+        @Override
+        public void onTableIsDone(TableIsDoneEvent event) {
+            send(event);
+        }
+
+        @Override
+        public void onPlayerWentAllIn(PlayerWentAllInEvent event) {
+            send(event);
+        }
+
+        @Override
+        public void onPlayerChecked(PlayerCheckedEvent event) {
+            send(event);
+        }
+
+        @Override
+        public void onYouWonAmount(YouWonAmountEvent event) {
+            send(event);
+        }
+
+        @Override
+        public void onShowDown(ShowDownEvent event) {
+            send(event);
+        }
+
+        @Override
+        public void onPlayerQuit(PlayerQuitEvent event) {
+            send(event);
+        }
+
+        @Override
+        public void connectionToGameServerLost() {
+        }
+
+        @Override
+        public void connectionToGameServerEstablished() {
+        }
+
+        @Override
+        public void serverIsShuttingDown(ServerIsShuttingDownEvent event) {
+            send(event);
+        }
+    }
+}
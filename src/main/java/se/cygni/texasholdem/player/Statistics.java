@@ -1,17 +1,75 @@
 package se.cygni.texasholdem.player;
 
-import se.cygni.texasholdem.game.Card;
-import se.cygni.texasholdem.game.Deck;
 import se.cygni.texasholdem.game.definitions.PokerHand;
-import se.cygni.texasholdem.game.util.PokerHandUtil;
 
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Created by HalfLeif on 2015-04-20.
  */
 public class Statistics {
 
+    /** Largest number of cards in the tables below, a deck. */
+    private static final int MAX_CARDS = 52;
+    /** Largest number of draws in @see Statistics#AT_LEAST, all cards of a hand. */
+    private static final int MAX_DRAWS = 7;
+    /** Largest number of gems in @see Statistics#AT_LEAST, the cards of a suit. */
+    private static final int MAX_GEMS = 13;
+
+    /** PASCAL[n][k] is n over k, exact since all fit in the 53 bits of a double. */
+    private static final double[][] PASCAL = new double[MAX_CARDS+1][MAX_CARDS+1];
+    static {
+        for(int n = 0; n <= MAX_CARDS; ++n){
+            PASCAL[n][0] = 1.0;
+            for(int k = 1; k <= n; ++k){
+                PASCAL[n][k] = PASCAL[n-1][k-1] + PASCAL[n-1][k];
+            }
+        }
+    }
+
+    /** Largest exist and types in @see Statistics#AT_LEAST_ONE_OF, the cards of a rank and of a straight. */
+    private static final int MAX_EXIST = 4;
+    private static final int MAX_TYPES = 5;
+
+    /** AT_LEAST[draws][wants][gems][rocks] is @see Statistics#drawAtLeast() */
+    private static final double[][][][] AT_LEAST = new double[MAX_DRAWS+1][MAX_DRAWS+1][MAX_GEMS+1][];
+    static {
+        for(int draws = 0; draws <= MAX_DRAWS; ++draws){
+            for(int wants = 0; wants <= MAX_DRAWS; ++wants){
+                for(int gems = 0; gems <= MAX_GEMS; ++gems){
+                    final double[] row = new double[MAX_CARDS - gems + 1];
+                    for(int rocks = 0; rocks < row.length; ++rocks){
+                        double prob = 0.0;
+                        for(int ix = wants; ix <= draws; ++ix){
+                            prob += drawExactly(ix, draws, gems, rocks);
+                        }
+                        row[rocks] = prob;
+                    }
+                    AT_LEAST[draws][wants][gems] = row;
+                }
+            }
+        }
+    }
+
+    /** AT_LEAST_ONE_OF[exist][types][draws][total] is @see Statistics#atLeastOneOfSeveral() */
+    private static final double[][][][] AT_LEAST_ONE_OF = new double[MAX_EXIST+1][MAX_TYPES+1][MAX_DRAWS+1][MAX_CARDS+1];
+    static {
+        for(int exist = 0; exist <= MAX_EXIST; ++exist){
+            for(int types = 0; types <= MAX_TYPES; ++types){
+                for(int draws = types; draws <= MAX_DRAWS; ++draws){
+                    for(int total = 0; total <= MAX_CARDS; ++total){
+                        AT_LEAST_ONE_OF[exist][types][draws][total] = inclusionExclusion(exist, types, draws, total);
+                    }
+                }
+            }
+        }
+    }
+
     public static boolean closeEnough(double n){
         return Math.abs(n) < 1e-10;
     }
@@ -28,6 +86,9 @@ public class Statistics {
      * Efficient and numerically stable way to compute number of combinations: n over k.
      */
     public static double combinations(double n, final double k){
+        if(isCount(n) && isCount(k)){
+            return k <= n ? PASCAL[(int) n][(int) k] : 0.0;
+        }
         double result = 1.0 ;
         for(double limit = n-k; n > limit; --n){
             result *= n;
@@ -62,6 +123,10 @@ public class Statistics {
      * Draw at least so many instead of exactly.
      */
     public static double drawAtLeast(final double wants, final double draws, final double gems, final double rocks){
+        if(isCount(wants) && isCount(draws) && isCount(gems) && isCount(rocks)
+                && draws <= MAX_DRAWS && wants <= MAX_DRAWS && gems <= MAX_GEMS && gems + rocks <= MAX_CARDS){
+            return AT_LEAST[(int) draws][(int) wants][(int) gems][(int) rocks];
+        }
         double prob = 0.0;
         for(double ix=wants; ix <= draws; ++ix){
             prob += drawExactly(ix, draws, gems, rocks);
@@ -81,6 +146,14 @@ public class Statistics {
         if(types > draws){
             return 0.0;
         }
+        if(exist >= 0 && exist <= MAX_EXIST && types >= 0 && types <= MAX_TYPES
+                && isCount(draws) && draws <= MAX_DRAWS && isCount(total)){
+            return AT_LEAST_ONE_OF[exist][types][(int) draws][(int) total];
+        }
+        return inclusionExclusion(exist, types, draws, total);
+    }
+
+    private static double inclusionExclusion(final int exist, final int types, final double draws, final double total){
         double prob = 0.0;
         for(int ix = 1; ix <= types; ++ix){
 //            System.out.println("atLeast: "+prob);
@@ -90,6 +163,13 @@ public class Statistics {
         return 1.0 - prob;
     }
 
+    /**
+     * @return If n is a whole number of cards, so that the tables can be used.
+     */
+    private static boolean isCount(double n){
+        return n >= 0.0 && n <= MAX_CARDS && n == (int) n;
+    }
+
     public static double odd(int ix){
         if(ix%2 == 1){
             return 1.0;
@@ -121,27 +201,38 @@ public class Statistics {
 //    }
 
     /**
-     * This data is built from simulation from @see Statistics#run()
+     * @see Statistics#score() indexed by PokerHand ordinal.
+     */
+    static final double[] SCORE = new double[PokerHand.values().length];
+    static {
+        for(Map.Entry<PokerHand, Double> e : score().entrySet()){
+            SCORE[e.getKey().ordinal()] = e.getValue();
+        }
+    }
+
+    /**
+     * Exact, counted over all hands of 7 cards by @see ScoreTableGenerator
      * @return Probability-map of beating a uniform hand.
      */
     public static Map<PokerHand,Double> score(){
         Map<PokerHand,Double> map = new EnumMap<PokerHand, Double>(PokerHand.class);
 
-        map.put(PokerHand.ROYAL_FLUSH, 1.0);
-        map.put(PokerHand.STRAIGHT_FLUSH, 998876.0/1e6);
-        map.put(PokerHand.FOUR_OF_A_KIND, 994805.0/1e6);
-        map.put(PokerHand.FULL_HOUSE, 938212.0/1e6);
-        map.put(PokerHand.FLUSH, 886338.0/1e6);
-        map.put(PokerHand.STRAIGHT, 823637.0/1e6);
-        map.put(PokerHand.THREE_OF_A_KIND, 768678.0/1e6);
-        map.put(PokerHand.TWO_PAIRS, 531718.0/1e6);
-        map.put(PokerHand.ONE_PAIR, 140650.0/1e6);
-        map.put(PokerHand.HIGH_HAND, 0.0);
-        map.put(PokerHand.NOTHING, 0.0);
+        // From the weakest up, a hand beats every hand of a weaker kind
+        final PokerHand[] hands = PokerHand.values();
+        long weaker = 0;
+        for(int ix = hands.length-1; ix >= 0; --ix){
+            map.put(hands[ix], weaker / (double) ScoreTable.HANDS);
+            weaker += ScoreTable.count(hands[ix]);
+        }
 
         return map;
     }
 
+    /** Number of hands dealt and evaluated together in @see Statistics#run() */
+    private static final int CHUNK = 4096;
+    /** Number of hands with the same random generator in @see Statistics#run() */
+    private static final long RUN_CHUNK = 1 << 20;
+
     private final Map<PokerHand,Long> handMap = new HashMap<PokerHand, Long>(11);
 
     private Statistics(){
@@ -169,23 +260,56 @@ public class Statistics {
     NOTHING: 0
      */
     public static String run(final long iters){
+        return run(iters, System.nanoTime(), Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Deals and evaluates iters random 7 card hands on several threads.
+     * The hands are split in chunks of fixed size, every chunk has its own random generator
+     * seeded from the seed and the chunk number, so a seed gives the same counts
+     * whatever the number of threads.
+     *
+     * Usage: Statistics [iters] [seed] [threads]
+     */
+    public static String run(final long iters, final long seed, int threads){
         Statistics s = new Statistics();
 
-        long tenth = iters/10;
-        for(long ix=0; ix<iters; ++ix){
-            if(ix%tenth == 0){
-                System.out.println("Passed "+ix);
-            }
-            Deck d = Deck.getShuffledDeck();
-            List<Card> cardList = new ArrayList<Card>(7);
-            for(int c=0; c<7; ++c){
-                cardList.add(d.getNextCard());
+        final long chunks = (iters + RUN_CHUNK - 1) / RUN_CHUNK;
+        final ExecutorService pool = Executors.newFixedThreadPool(threads);
+        final long[] counts = new long[PokerHand.values().length];
+        try {
+            final List<Future<long[]>> futures = new ArrayList<Future<long[]>>();
+            for(long ix=0; ix<chunks; ++ix){
+                final long chunk = ix;
+                final long size = Math.min(RUN_CHUNK, iters - chunk*RUN_CHUNK);
+                futures.add(pool.submit(new Callable<long[]>() {
+                    @Override
+                    public long[] call() {
+                        return count(size, new SplitMix64(SplitMix64.seed(seed, chunk)));
+                    }
+                }));
             }
-            PokerHandUtil util = new PokerHandUtil(cardList);
-            PokerHand pokerHand = util.getBestHand().getPokerHand();
 
-            Long timesBefore = s.handMap.get(pokerHand);
-            s.handMap.put(pokerHand, timesBefore+1);
+            long tenth = Math.max(1, chunks/10);
+            for(int ix=0; ix<futures.size(); ++ix){
+                if(ix%tenth == 0){
+                    System.out.println("Passed "+ix*RUN_CHUNK);
+                }
+                final long[] chunkCounts = futures.get(ix).get();
+                for(int h=0; h<counts.length; ++h){
+                    counts[h] += chunkCounts[h];
+                }
+            }
+        } catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e){
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+        for(PokerHand h : PokerHand.values()){
+            s.handMap.put(h, counts[h.ordinal()]);
         }
         StringBuilder stringBuilder = new StringBuilder();
         stringBuilder.append("Out of "+iters+" times, got ");
@@ -195,4 +319,35 @@ public class Statistics {
         return stringBuilder.toString();
     }
 
+    /**
+     * @return Number of hands of every PokerHand, indexed by ordinal, among so many random 7 card hands.
+     */
+    static long[] count(long hands, SplitMix64 random){
+        final IntDeck deck = new IntDeck(random);
+        final long[] batch = new long[CHUNK];
+        final int[] strengths = new int[CHUNK];
+        final long[] counts = new long[PokerHand.values().length];
+
+        for(long ix=0; ix<hands; ){
+            // Deals a batch of hands and evaluates them together
+            final int n = (int) Math.min(CHUNK, hands-ix);
+            for(int h=0; h<n; ++h, ++ix){
+                deck.collect();
+                batch[h] = deck.deal(7);
+            }
+            HandEvaluator.evaluate(batch, strengths, n);
+            for(int h=0; h<n; ++h){
+                counts[HandEvaluator.pokerHand(strengths[h]).ordinal()]++;
+            }
+        }
+        return counts;
+    }
+
+    public static void main(String[] args){
+        final long iters = args.length > 0 ? Long.parseLong(args[0]) : 1000000;
+        final long seed = args.length > 1 ? Long.parseLong(args[1]) : System.nanoTime();
+        final int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        System.out.println(run(iters, seed, threads));
+    }
+
 }
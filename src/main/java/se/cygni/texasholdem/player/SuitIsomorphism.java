@@ -0,0 +1,30 @@
+package se.cygni.texasholdem.player;
+
+/**
+ * Maps a CardSet to a representative of all sets that only differ by renaming the suits.
+ *
+ * Scoring treats all suits alike, so every member of such a class gets the same answer.
+ * The representative has its suit lanes sorted by decreasing rank mask.
+ * There are for example 169 classes of two cards and 1755 classes of three cards.
+ */
+public final class SuitIsomorphism {
+
+    private SuitIsomorphism(){}
+
+    public static long canonical(long cards){
+        int a = CardSet.suitRanks(cards, 0);
+        int b = CardSet.suitRanks(cards, 1);
+        int c = CardSet.suitRanks(cards, 2);
+        int d = CardSet.suitRanks(cards, 3);
+        int t;
+
+        // Sorting network for four elements, largest first
+        if(a < b){ t = a; a = b; b = t; }
+        if(c < d){ t = c; c = d; d = t; }
+        if(a < c){ t = a; a = c; c = t; }
+        if(b < d){ t = b; b = d; d = t; }
+        if(b < c){ t = b; b = c; c = t; }
+
+        return a | (long) b << CardSet.LANE | (long) c << 2*CardSet.LANE | (long) d << 3*CardSet.LANE;
+    }
+}
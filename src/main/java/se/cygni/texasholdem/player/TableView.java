@@ -0,0 +1,22 @@
+package se.cygni.texasholdem.player;
+
+/**
+ * What a bot needs to know about its table besides the events it is sent,
+ * kept by the client's CurrentPlayState on the server or by @see LocalTable
+ */
+public interface TableView {
+
+    /**
+     * @return Number of players dealt into the current hand, folded or not.
+     */
+    int getNumberOfPlayers();
+
+    long getMyCurrentChipAmount();
+
+    long getTableId();
+
+    /**
+     * @return Chips put in the pot by all players during the current hand, blinds and the bets of this round included.
+     */
+    long getPotTotal();
+}
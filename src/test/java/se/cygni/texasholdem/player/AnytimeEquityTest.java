@@ -0,0 +1,58 @@
+package se.cygni.texasholdem.player;
+
+import org.junit.Test;
+import se.cygni.texasholdem.game.definitions.Rank;
+import se.cygni.texasholdem.game.definitions.Suit;
+
+import java.util.concurrent.TimeUnit;
+
+public class AnytimeEquityTest {
+
+    private static long card(Rank r, Suit s){
+        return CardSet.of(r.ordinal(), s.ordinal());
+    }
+
+    @Test
+    public void respectsDeadline(){
+        final long hole = card(Rank.ACE, Suit.SPADES) | card(Rank.KING, Suit.SPADES);
+        final long board = card(Rank.QUEEN, Suit.SPADES) | card(Rank.SEVEN, Suit.DIAMONDS) | card(Rank.DEUCE, Suit.CLUBS);
+
+        // Starts the pool and loads the classes, which alone may take the whole deadline
+        AnytimeEquity.estimate(hole, board, 3, System.nanoTime() + TimeUnit.SECONDS.toNanos(1));
+
+        final long start = System.nanoTime();
+        final EquityEstimate estimate = AnytimeEquity.estimate(hole, board, 3,
+                start + TimeUnit.MILLISECONDS.toNanos(50), 0.0);
+        final long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // Precision 0 is never reached, only the deadline stops sampling. The bound only
+        // catches a search that ignores the deadline, not a slow machine.
+        assert elapsed < 2000 : elapsed + " ms";
+        assert estimate.getSamples() > 0;
+        assert estimate.getLow() < estimate.getHigh();
+        assert estimate.getLow() <= estimate.getEquity() && estimate.getEquity() <= estimate.getHigh();
+    }
+
+    @Test
+    public void intervalCoversExact(){
+        final long hole = card(Rank.ACE, Suit.SPADES) | card(Rank.QUEEN, Suit.HEARTS);
+        final long board = card(Rank.QUEEN, Suit.CLUBS) | card(Rank.SEVEN, Suit.DIAMONDS)
+                | card(Rank.DEUCE, Suit.CLUBS) | card(Rank.NINE, Suit.HEARTS);
+
+        final double exact = ExactEquity.compute(hole, board).getEquity();
+        final EquityEstimate estimate = AnytimeEquity.estimate(hole, board, 1,
+                System.nanoTime() + TimeUnit.SECONDS.toNanos(2), 0.003);
+
+        assert estimate.getHigh() - estimate.getLow() <= 0.02;
+        assert Math.abs(estimate.getEquity() - exact) < 0.01;
+    }
+
+    @Test
+    public void priorWhenOutOfTime(){
+        final long hole = card(Rank.ACE, Suit.SPADES) | card(Rank.ACE, Suit.HEARTS);
+        final EquityEstimate estimate = AnytimeEquity.estimate(hole, CardSet.EMPTY, 1, System.nanoTime() - 1);
+
+        assert estimate.getSamples() == 0;
+        assert estimate.getLow() == 0.0 && estimate.getHigh() == 1.0;
+    }
+}
@@ -0,0 +1,60 @@
+package se.cygni.texasholdem.player;
+
+import org.junit.Test;
+
+public class CalibrationTest {
+
+    @Test
+    public void calibratedEstimatesMatchOutcomes(){
+        final SplitMix64 random = new SplitMix64(22);
+        final Calibration calibration = new Calibration();
+        for(int ix = 0; ix < 200000; ++ix){
+            final double estimate = random.nextInt(1000) / 1000.0;
+            final double outcome = random.nextInt(1000) < estimate*1000 ? 1.0 : 0.0;
+            calibration.add(estimate, outcome);
+        }
+        assert calibration.calibrationError() < 0.01;
+        // Expected Brier score of calibrated uniform estimates is the mean of p(1-p), 1/6
+        assert Math.abs(calibration.brierScore() - 1/6.0) < 0.01;
+        for(int bin = 0; bin < Calibration.BINS; ++bin){
+            assert Math.abs(calibration.meanEstimate(bin) - calibration.meanOutcome(bin)) < 0.02;
+        }
+    }
+
+    @Test
+    public void certainEstimates(){
+        final Calibration calibration = new Calibration();
+        calibration.add(1.0, 1.0);
+        calibration.add(0.0, 0.0);
+        assert calibration.brierScore() == 0.0;
+        assert calibration.logLoss() < 1e-5;
+        calibration.add(0.0, 1.0);
+        assert Math.abs(calibration.brierScore() - 1/3.0) < 1e-12;
+        assert calibration.logLoss() > 4;
+    }
+
+    /**
+     * River boards only, where the exact equity is a single pass over the opponent's hands.
+     */
+    @Test
+    public void exactRiverIsBetterThanScoring(){
+        final IntDeck deck = new IntDeck(new SplitMix64(22));
+        final long[] holes = new long[2];
+        final int[] strengths = new int[2];
+        final Calibration exact = new Calibration();
+        final Calibration scoring = new Calibration();
+        for(int round = 0; round < 300; ++round){
+            deck.collect();
+            holes[0] = deck.deal(2);
+            holes[1] = deck.deal(2);
+            final long board = deck.deal(5);
+            HandEvaluator.evaluate(board, holes, strengths, 2);
+            final int cmp = Scoring.compareHands(strengths[0], strengths[1]);
+            final double outcome = cmp > 0 ? 1.0 : cmp == 0 ? 0.5 : 0.0;
+            exact.add(ExactEquity.compute(holes[0], board).getEquity(), outcome);
+            scoring.add(EquityEstimators.SCORING.estimate(holes[0], board, 1), outcome);
+        }
+        assert exact.getTotal() == 300;
+        assert exact.brierScore() < scoring.brierScore();
+    }
+}
@@ -0,0 +1,57 @@
+package se.cygni.texasholdem.player;
+
+import org.junit.Test;
+import se.cygni.texasholdem.game.Card;
+import se.cygni.texasholdem.game.definitions.Rank;
+import se.cygni.texasholdem.game.definitions.Suit;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class CardSetTest {
+
+    @Test
+    public void roundTrip(){
+        List<Card> cards = new ArrayList<Card>();
+        cards.add(new Card(Rank.ACE, Suit.CLUBS));
+        cards.add(new Card(Rank.DEUCE, Suit.HEARTS));
+        cards.add(new Card(Rank.TEN, Suit.CLUBS));
+
+        final long set = CardSet.of(cards);
+        assert CardSet.size(set) == 3;
+        assert CardSet.toList(set).containsAll(cards);
+        assert CardSet.contains(set, new Card(Rank.TEN, Suit.CLUBS));
+        assert !CardSet.contains(set, new Card(Rank.TEN, Suit.HEARTS));
+        assert CardSet.size(CardSet.FULL_DECK) == 52;
+    }
+
+    @Test
+    public void masksAndCounts(){
+        List<Card> cards = new ArrayList<Card>();
+        cards.add(new Card(Rank.KING, Suit.CLUBS));
+        cards.add(new Card(Rank.KING, Suit.HEARTS));
+        cards.add(new Card(Rank.KING, Suit.DIAMONDS));
+        cards.add(new Card(Rank.FIVE, Suit.CLUBS));
+
+        final long set = CardSet.of(cards);
+        assert CardSet.rankCount(set, Rank.KING.ordinal()) == 3;
+        assert CardSet.rankCount(set, Rank.FIVE.ordinal()) == 1;
+        assert CardSet.suitCount(set, Suit.CLUBS.ordinal()) == 2;
+        assert CardSet.suitRanks(set, Suit.CLUBS.ordinal()) == (1 << Rank.KING.ordinal() | 1 << Rank.FIVE.ordinal());
+        assert CardSet.ranks(set) == (1 << Rank.KING.ordinal() | 1 << Rank.FIVE.ordinal());
+    }
+
+    @Test
+    public void sameAsList(){
+        List<Card> cards = new ArrayList<Card>();
+        cards.add(new Card(Rank.ACE, Suit.CLUBS));
+        cards.add(new Card(Rank.ACE, Suit.DIAMONDS));
+        cards.add(new Card(Rank.KING, Suit.DIAMONDS));
+        cards.add(new Card(Rank.JACK, Suit.DIAMONDS));
+        cards.add(new Card(Rank.TEN, Suit.DIAMONDS));
+
+        final double fromList = Scoring.chanceToWinAgainstUniform(cards);
+        final double fromSet = Scoring.chanceToWinAgainstUniform(CardSet.of(cards));
+        assert Statistics.closeEnough(fromList - fromSet);
+    }
+}
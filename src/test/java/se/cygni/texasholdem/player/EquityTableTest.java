@@ -0,0 +1,110 @@
+package se.cygni.texasholdem.player;
+
+import org.junit.Test;
+import se.cygni.texasholdem.game.definitions.Rank;
+import se.cygni.texasholdem.game.definitions.Suit;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class EquityTableTest {
+
+    private static long card(Rank r, Suit s){
+        return CardSet.of(r.ordinal(), s.ordinal());
+    }
+
+    private static final long BOARD = card(Rank.SEVEN, Suit.DIAMONDS) | card(Rank.QUEEN, Suit.SPADES)
+            | card(Rank.DEUCE, Suit.DIAMONDS) | card(Rank.JACK, Suit.CLUBS);
+
+    private static File writeTable() throws IOException {
+        final Map<Long, Float> turn = new TreeMap<Long, Float>();
+        for(int c = 0; c < 40; ++c){
+            final long hole = HandRange.cards(c);
+            if((hole & BOARD) == 0){
+                turn.put(EquityTable.key(hole, BOARD), (float) ExactEquity.compute(hole, BOARD).getEquity());
+            }
+        }
+        final long[] keys = new long[turn.size()];
+        final float[] values = new float[turn.size()];
+        int n = 0;
+        for(Map.Entry<Long, Float> e : turn.entrySet()){
+            keys[n] = e.getKey();
+            values[n++] = e.getValue();
+        }
+
+        final float[] preflop = new float[PreflopTable.CLASSES*PreflopTable.MAX_OPPONENTS];
+        for(int ix = 0; ix < preflop.length; ++ix){
+            preflop[ix] = ix;
+        }
+
+        final File file = File.createTempFile("equity", ".bin");
+        file.deleteOnExit();
+        EquityTableWriter.write(file, new int[]{EquityTable.PREFLOP, EquityTable.TURN}, new ByteBuffer[]{
+                EquityTableWriter.preflopSection(preflop),
+                EquityTableWriter.keyedSection(keys, values, n)});
+        return file;
+    }
+
+    @Test
+    public void lookupIgnoresSuitNames() throws IOException {
+        final EquityTable table = EquityTable.open(writeTable());
+        assert table.has(EquityTable.PREFLOP);
+        assert table.has(EquityTable.TURN);
+        assert !table.has(EquityTable.FLOP);
+        assert table.preflop(3, 2) == 3*PreflopTable.MAX_OPPONENTS + 1;
+
+        // Card 0 and 1 are the deuce and trey of the first suit, swap the first two suits
+        final long hole = HandRange.cards(1);
+        final int[] swap = {1, 0, 2, 3};
+        final float expected = (float) ExactEquity.compute(hole, BOARD).getEquity();
+        assert table.equity(hole, BOARD) == expected;
+        assert table.equity(ExactEquity.permute(hole, swap), ExactEquity.permute(BOARD, swap)) == expected;
+
+        final long missing = card(Rank.ACE, Suit.SPADES) | card(Rank.ACE, Suit.HEARTS);
+        assert Float.isNaN(table.equity(missing, BOARD));
+    }
+
+    @Test
+    public void damagedSectionIsLeftOut() throws IOException {
+        final File file = writeTable();
+        final RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            raf.seek(raf.length() - 1);
+            final int last = raf.read();
+            raf.seek(raf.length() - 1);
+            raf.write(last ^ 0xFF);
+        } finally {
+            raf.close();
+        }
+        final EquityTable table = EquityTable.open(file);
+        assert table.has(EquityTable.PREFLOP);
+        assert !table.has(EquityTable.TURN);
+        assert Float.isNaN(table.equity(HandRange.cards(1), BOARD));
+    }
+
+    @Test
+    public void rejectsOtherFiles() throws IOException {
+        final File file = File.createTempFile("equity", ".bin");
+        file.deleteOnExit();
+        boolean rejected = false;
+        try {
+            EquityTable.open(file);
+        } catch (IOException e){
+            rejected = true;
+        }
+        assert rejected;
+    }
+
+    @Test
+    public void boardsInKeyOrder(){
+        final long[] boards = EquityTableWriter.boards(3);
+        assert boards.length == 22100;
+        for(int ix = 1; ix < boards.length; ++ix){
+            assert EquityTable.rawKey(HandRange.cards(0), boards[ix]) > EquityTable.rawKey(HandRange.cards(0), boards[ix-1]);
+        }
+    }
+}
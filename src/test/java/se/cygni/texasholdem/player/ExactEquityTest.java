@@ -0,0 +1,49 @@
+package se.cygni.texasholdem.player;
+
+import org.junit.Test;
+import se.cygni.texasholdem.game.definitions.Rank;
+import se.cygni.texasholdem.game.definitions.Suit;
+
+public class ExactEquityTest {
+
+    private static long card(Rank r, Suit s){
+        return CardSet.of(r.ordinal(), s.ordinal());
+    }
+
+    @Test
+    public void nutsOnTheRiver(){
+        final long hole = card(Rank.TEN, Suit.HEARTS) | card(Rank.NINE, Suit.CLUBS);
+        final long board = card(Rank.ACE, Suit.HEARTS) | card(Rank.KING, Suit.HEARTS)
+                | card(Rank.QUEEN, Suit.HEARTS) | card(Rank.JACK, Suit.HEARTS) | card(Rank.DEUCE, Suit.CLUBS);
+
+        final Equity equity = ExactEquity.compute(hole, board);
+        assert Statistics.closeEnough(equity.getWin() - 1.0);
+        assert Statistics.closeEnough(equity.getEquity() - 1.0);
+    }
+
+    /**
+     * Every river card is equally likely, so the turn equity is the mean of the river equities.
+     * Checks that leaving out suit permutations does not change the result.
+     */
+    @Test
+    public void turnIsMeanOfRivers(){
+        // Diamonds and clubs can be swapped without changing anything
+        final long hole = card(Rank.ACE, Suit.SPADES) | card(Rank.KING, Suit.SPADES);
+        final long board = card(Rank.SEVEN, Suit.DIAMONDS) | card(Rank.SEVEN, Suit.CLUBS)
+                | card(Rank.DEUCE, Suit.DIAMONDS) | card(Rank.DEUCE, Suit.CLUBS);
+
+        final Equity turn = ExactEquity.compute(hole, board);
+
+        double win = 0.0;
+        double tie = 0.0;
+        final int[] rivers = ExactEquity.liveCards(hole | board);
+        for(int river : rivers){
+            final Equity e = ExactEquity.compute(hole, board | 1L << river);
+            win += e.getWin();
+            tie += e.getTie();
+        }
+        assert Math.abs(turn.getWin() - win / rivers.length) < 1e-9;
+        assert Math.abs(turn.getTie() - tie / rivers.length) < 1e-9;
+        assert Statistics.closeEnough(turn.getWin() + turn.getTie() + turn.getLoss() - 1.0);
+    }
+}
@@ -0,0 +1,126 @@
+package se.cygni.texasholdem.player;
+
+import org.junit.Test;
+import se.cygni.texasholdem.game.definitions.PokerHand;
+import se.cygni.texasholdem.game.definitions.Rank;
+import se.cygni.texasholdem.game.definitions.Suit;
+
+import java.util.HashSet;
+import java.util.Set;
+
+public class HandEvaluatorTest {
+
+    private static long cards(Object... rankSuit){
+        long set = CardSet.EMPTY;
+        for(int ix = 0; ix < rankSuit.length; ix += 2){
+            set |= CardSet.of(((Rank) rankSuit[ix]).ordinal(), ((Suit) rankSuit[ix+1]).ordinal());
+        }
+        return set;
+    }
+
+    @Test
+    public void categories(){
+        assert HandEvaluator.pokerHand(HandEvaluator.evaluate(cards(
+                Rank.ACE, Suit.HEARTS, Rank.KING, Suit.HEARTS, Rank.QUEEN, Suit.HEARTS,
+                Rank.JACK, Suit.HEARTS, Rank.TEN, Suit.HEARTS, Rank.DEUCE, Suit.CLUBS))) == PokerHand.ROYAL_FLUSH;
+        assert HandEvaluator.pokerHand(HandEvaluator.evaluate(cards(
+                Rank.ACE, Suit.CLUBS, Rank.DEUCE, Suit.HEARTS, Rank.THREE, Suit.HEARTS,
+                Rank.FOUR, Suit.HEARTS, Rank.FIVE, Suit.SPADES))) == PokerHand.STRAIGHT;
+        assert HandEvaluator.pokerHand(HandEvaluator.evaluate(cards(
+                Rank.KING, Suit.CLUBS, Rank.KING, Suit.HEARTS, Rank.KING, Suit.SPADES,
+                Rank.FOUR, Suit.HEARTS, Rank.FOUR, Suit.SPADES, Rank.FOUR, Suit.CLUBS))) == PokerHand.FULL_HOUSE;
+        assert HandEvaluator.pokerHand(HandEvaluator.evaluate(cards(
+                Rank.NINE, Suit.CLUBS, Rank.NINE, Suit.HEARTS, Rank.SIX, Suit.SPADES,
+                Rank.SIX, Suit.HEARTS, Rank.DEUCE, Suit.SPADES, Rank.DEUCE, Suit.CLUBS))) == PokerHand.TWO_PAIRS;
+    }
+
+    @Test
+    public void kickers(){
+        final int aceKicker = HandEvaluator.evaluate(cards(
+                Rank.NINE, Suit.CLUBS, Rank.NINE, Suit.HEARTS, Rank.ACE, Suit.SPADES,
+                Rank.SIX, Suit.HEARTS, Rank.FOUR, Suit.SPADES));
+        final int kingKicker = HandEvaluator.evaluate(cards(
+                Rank.NINE, Suit.DIAMONDS, Rank.NINE, Suit.SPADES, Rank.KING, Suit.SPADES,
+                Rank.SIX, Suit.CLUBS, Rank.FOUR, Suit.CLUBS));
+        final int sameAsAce = HandEvaluator.evaluate(cards(
+                Rank.NINE, Suit.DIAMONDS, Rank.NINE, Suit.SPADES, Rank.ACE, Suit.HEARTS,
+                Rank.SIX, Suit.CLUBS, Rank.FOUR, Suit.CLUBS));
+
+        assert aceKicker > kingKicker;
+        assert aceKicker == sameAsAce;
+
+        final int wheel = HandEvaluator.evaluate(cards(
+                Rank.ACE, Suit.CLUBS, Rank.DEUCE, Suit.HEARTS, Rank.THREE, Suit.HEARTS,
+                Rank.FOUR, Suit.HEARTS, Rank.FIVE, Suit.SPADES));
+        final int sixHigh = HandEvaluator.evaluate(cards(
+                Rank.SIX, Suit.CLUBS, Rank.DEUCE, Suit.HEARTS, Rank.THREE, Suit.HEARTS,
+                Rank.FOUR, Suit.HEARTS, Rank.FIVE, Suit.SPADES));
+        assert sixHigh > wheel;
+    }
+
+    /**
+     * Compares with the well known number of five card hands in each category.
+     */
+    @Test
+    public void allFiveCardHands(){
+        final int[] count = new int[10];
+        final Set<Integer> distinct = new HashSet<Integer>();
+        final int[] deck = new int[52];
+        int n = 0;
+        for(int s = 0; s < CardSet.SUITS; ++s){
+            for(int r = 0; r < CardSet.RANKS; ++r){
+                deck[n++] = CardSet.index(r, s);
+            }
+        }
+        for(int a = 0; a < 52; ++a)
+            for(int b = a+1; b < 52; ++b)
+                for(int c = b+1; c < 52; ++c)
+                    for(int d = c+1; d < 52; ++d)
+                        for(int e = d+1; e < 52; ++e){
+                            final int strength = HandEvaluator.evaluate(1L << deck[a] | 1L << deck[b]
+                                    | 1L << deck[c] | 1L << deck[d] | 1L << deck[e]);
+                            count[HandEvaluator.category(strength)]++;
+                            distinct.add(strength);
+                        }
+
+        assert count[HandEvaluator.STRAIGHT_FLUSH] == 40;
+        assert count[HandEvaluator.FOUR_OF_A_KIND] == 624;
+        assert count[HandEvaluator.FULL_HOUSE] == 3744;
+        assert count[HandEvaluator.FLUSH] == 5108;
+        assert count[HandEvaluator.STRAIGHT] == 10200;
+        assert count[HandEvaluator.THREE_OF_A_KIND] == 54912;
+        assert count[HandEvaluator.TWO_PAIRS] == 123552;
+        assert count[HandEvaluator.ONE_PAIR] == 1098240;
+        assert count[HandEvaluator.HIGH_HAND] == 1302540;
+        assert distinct.size() == 7462;
+    }
+
+    @Test
+    public void batchMatchesSingle(){
+        final SplitMix64 random = new SplitMix64(7);
+        final int n = 1000;
+        final long[] boards = new long[n];
+        final long[] holes = new long[n];
+        for(int ix = 0; ix < n; ++ix){
+            long cards = CardSet.EMPTY;
+            while(CardSet.size(cards) < 7){
+                cards |= 1L << CardSet.index(random.nextInt(CardSet.RANKS), random.nextInt(CardSet.SUITS));
+            }
+            holes[ix] = cards & -cards;
+            holes[ix] |= (cards & ~holes[ix]) & -(cards & ~holes[ix]);
+            boards[ix] = cards;
+        }
+
+        final int[] out = new int[n];
+        HandEvaluator.evaluate(boards, out, n);
+        for(int ix = 0; ix < n; ++ix){
+            assert out[ix] == HandEvaluator.evaluate(boards[ix]);
+        }
+
+        final long board = boards[0] & ~holes[0];
+        HandEvaluator.evaluate(board, holes, out, n);
+        for(int ix = 0; ix < n; ++ix){
+            assert out[ix] == HandEvaluator.evaluate(board | holes[ix]);
+        }
+    }
+}
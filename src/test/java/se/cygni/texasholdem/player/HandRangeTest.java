@@ -0,0 +1,63 @@
+package se.cygni.texasholdem.player;
+
+import org.junit.Test;
+import se.cygni.texasholdem.game.definitions.Rank;
+import se.cygni.texasholdem.game.definitions.Suit;
+
+public class HandRangeTest {
+
+    private static long card(Rank r, Suit s){
+        return CardSet.of(r.ordinal(), s.ordinal());
+    }
+
+    @Test
+    public void comboIndexRoundTrip(){
+        for(int c = 0; c < HandRange.COMBOS; ++c){
+            assert CardSet.size(HandRange.cards(c)) == 2;
+            assert HandRange.combo(HandRange.cards(c)) == c;
+        }
+    }
+
+    @Test
+    public void raiseKeepsStrongHands(){
+        final HandRange range = new HandRange();
+        range.narrow(CardSet.EMPTY, 0.2);
+
+        final int aces = HandRange.combo(card(Rank.ACE, Suit.SPADES) | card(Rank.ACE, Suit.HEARTS));
+        final int junk = HandRange.combo(card(Rank.SEVEN, Suit.SPADES) | card(Rank.DEUCE, Suit.HEARTS));
+        assert range.getWeight(aces) == 1.0;
+        assert range.getWeight(junk) < 1.0;
+        assert range.totalWeight(CardSet.EMPTY) < HandRange.COMBOS;
+    }
+
+    /**
+     * Against a uniform range on the turn and river every runout and opponent hand
+     * is enumerated, which is what ExactEquity does.
+     */
+    @Test
+    public void uniformRangeIsExact(){
+        final long hole = card(Rank.ACE, Suit.SPADES) | card(Rank.KING, Suit.SPADES);
+        final long turn = card(Rank.SEVEN, Suit.DIAMONDS) | card(Rank.QUEEN, Suit.SPADES)
+                | card(Rank.DEUCE, Suit.DIAMONDS) | card(Rank.JACK, Suit.CLUBS);
+
+        for(long board : new long[]{turn, turn | card(Rank.TEN, Suit.HEARTS)}){
+            final Equity exact = ExactEquity.compute(hole, board);
+            final Equity range = RangeEquity.compute(hole, board, new HandRange());
+            assert Math.abs(exact.getWin() - range.getWin()) < 1e-9;
+            assert Math.abs(exact.getTie() - range.getTie()) < 1e-9;
+        }
+    }
+
+    @Test
+    public void narrowRangeLowersEquity(){
+        final long hole = card(Rank.QUEEN, Suit.SPADES) | card(Rank.JACK, Suit.SPADES);
+        final long board = card(Rank.QUEEN, Suit.DIAMONDS) | card(Rank.EIGHT, Suit.CLUBS)
+                | card(Rank.THREE, Suit.HEARTS);
+
+        final HandRange range = new HandRange();
+        final double any = RangeEquity.compute(hole, board, range).getEquity();
+        range.narrow(board, 0.1);
+        final double strong = RangeEquity.compute(hole, board, range).getEquity();
+        assert strong < any;
+    }
+}
@@ -0,0 +1,38 @@
+package se.cygni.texasholdem.player;
+
+import org.junit.Test;
+
+public class IntDeckTest {
+
+    @Test
+    public void dealsEveryLiveCardOnce(){
+        final long dead = CardSet.of(12, 0) | CardSet.of(12, 1) | CardSet.of(3, 2);
+        final IntDeck deck = new IntDeck(dead, new SplitMix64(18));
+        for(int hand = 0; hand < 100; ++hand){
+            deck.collect();
+            assert deck.remaining() == 49;
+            final long all = deck.deal(49);
+            assert all == (CardSet.FULL_DECK & ~dead);
+            assert deck.remaining() == 0;
+        }
+    }
+
+    @Test
+    public void cardsAreUniform(){
+        final IntDeck deck = new IntDeck(new SplitMix64(18));
+        final int[] seen = new int[64];
+        final int hands = 52000;
+        for(int hand = 0; hand < hands; ++hand){
+            deck.collect();
+            final long cards = deck.deal(7);
+            assert CardSet.size(cards) == 7;
+            for(long rest = cards; rest != 0; rest &= rest-1){
+                seen[Long.numberOfTrailingZeros(rest)]++;
+            }
+        }
+        // Every card is expected 7000 times, standard deviation about 80
+        for(long rest = CardSet.FULL_DECK; rest != 0; rest &= rest-1){
+            assert Math.abs(seen[Long.numberOfTrailingZeros(rest)] - 7000) < 500;
+        }
+    }
+}
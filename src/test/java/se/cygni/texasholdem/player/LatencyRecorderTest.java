@@ -0,0 +1,39 @@
+package se.cygni.texasholdem.player;
+
+import org.junit.Test;
+
+public class LatencyRecorderTest {
+
+    @Test
+    public void percentilesWithinFactorTwo(){
+        final LatencyRecorder latency = new LatencyRecorder();
+        for(int ms = 1; ms <= 100; ++ms){
+            latency.record(ms * 1000000L);
+        }
+        assert latency.getCount() == 100;
+        assert Math.abs(latency.getMeanMillis() - 50.5) < 1e-9;
+        assert latency.getMaxMillis() == 100.0;
+        final double median = latency.getPercentileMillis(0.5);
+        assert median >= 50 && median < 100;
+        final double p99 = latency.getPercentileMillis(0.99);
+        assert p99 >= 99 && p99 < 198;
+    }
+
+    @Test
+    public void mergedEqualsSingle(){
+        final LatencyRecorder all = new LatencyRecorder();
+        final LatencyRecorder first = new LatencyRecorder();
+        final LatencyRecorder second = new LatencyRecorder();
+        long nanos = 1;
+        for(int ix = 0; ix < 20; ++ix){
+            all.record(nanos);
+            (ix % 2 == 0 ? first : second).record(nanos);
+            nanos *= 3;
+        }
+        first.timeout();
+        all.timeout();
+        assert first.getCount() == 10 && second.getCount() == 10;
+        first.add(second);
+        assert first.toString().equals(all.toString());
+    }
+}
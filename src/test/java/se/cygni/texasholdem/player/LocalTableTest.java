@@ -0,0 +1,195 @@
+package se.cygni.texasholdem.player;
+
+import org.junit.Test;
+import se.cygni.texasholdem.communication.message.event.*;
+import se.cygni.texasholdem.communication.message.request.ActionRequest;
+import se.cygni.texasholdem.game.Action;
+import se.cygni.texasholdem.game.ActionType;
+import se.cygni.texasholdem.game.GamePlayer;
+import se.cygni.texasholdem.game.definitions.Rank;
+import se.cygni.texasholdem.game.definitions.Suit;
+
+import java.util.List;
+
+public class LocalTableTest {
+
+    @Test
+    public void chipsAreKept(){
+        final LocalTable table = new LocalTable(5, 10, 1000, 24);
+        new ScriptedPlayer("raiser", table, ActionType.RAISE, ActionType.CALL, ActionType.CHECK);
+        new ScriptedPlayer("caller", table, ActionType.CHECK, ActionType.CALL);
+        new ScriptedPlayer("shover", table, ActionType.ALL_IN);
+        for(int hand = 0; hand < 200 && table.playHand(); ++hand){
+            long total = 0;
+            for(int seat = 0; seat < table.getSeats(); ++seat){
+                assert table.getChips(seat) >= 0;
+                total += table.getChips(seat);
+            }
+            assert total == 3000;
+        }
+    }
+
+    @Test
+    public void tournamentEndsWithOneWinner(){
+        final LocalTable table = new LocalTable(5, 10, 1000, 24);
+        final ScriptedPlayer[] players = new ScriptedPlayer[4];
+        for(int ix = 0; ix < players.length; ++ix){
+            players[ix] = new ScriptedPlayer("shover"+ix, table, ActionType.ALL_IN);
+        }
+        final int winner = table.playTournament(100000);
+        assert table.getChips(winner) == 4000;
+        for(ScriptedPlayer p : players){
+            assert p.tableDone;
+        }
+    }
+
+    @Test
+    public void invalidActionIsForcedFold(){
+        final LocalTable table = new LocalTable(5, 10, 1000, 24);
+        new ScriptedPlayer("nothing", table);
+        final ScriptedPlayer caller = new ScriptedPlayer("caller", table, ActionType.CHECK, ActionType.CALL);
+        table.playHands(100);
+        assert caller.forcedFolds == 100;
+        // The small blind is lost in every other hand, the big blind in the others
+        assert Math.abs(table.getBigBlindsPerHand(0) + 0.75) < 1e-9;
+        assert Math.abs(table.getBigBlindsPerHand(1) - 0.75) < 1e-9;
+    }
+
+    @Test
+    public void actionNotOfferedIsForcedFold(){
+        // With 15 chips and blinds of 5 and 10 a raise is never offered
+        final LocalTable table = new LocalTable(5, 10, 15, 24);
+        final ScriptedPlayer raiser = new ScriptedPlayer("raiser", table, ActionType.FOLD) {
+            @Override
+            public Action actionRequired(ActionRequest request) {
+                super.actionRequired(request);
+                return new Action(ActionType.RAISE, 10);
+            }
+        };
+        final ScriptedPlayer caller = new ScriptedPlayer("caller", table, ActionType.CHECK, ActionType.CALL);
+        table.playHands(100);
+        for(List<ActionType> offered : raiser.offered){
+            assert !offered.contains(ActionType.RAISE);
+        }
+        assert caller.forcedFolds == 100;
+        assert Math.abs(table.getBigBlindsPerHand(0) + 0.75) < 1e-9;
+    }
+
+    @Test
+    public void exceptionIsForcedFold(){
+        final LocalTable table = new LocalTable(5, 10, 1000, 24);
+        new ScriptedPlayer("thrower", table) {
+            @Override
+            public Action actionRequired(ActionRequest request) {
+                throw new IllegalStateException("Bot bug");
+            }
+        };
+        final ScriptedPlayer caller = new ScriptedPlayer("caller", table, ActionType.CHECK, ActionType.CALL);
+        table.playHands(100);
+        assert caller.forcedFolds == 100;
+        assert Math.abs(table.getBigBlindsPerHand(1) - 0.75) < 1e-9;
+    }
+
+    @Test
+    public void playIsStartedTellsSeatsAndBlinds(){
+        final LocalTable table = new LocalTable(5, 10, 1000, 24);
+        final ScriptedPlayer first = new ScriptedPlayer("first", table, ActionType.CHECK, ActionType.CALL);
+        new ScriptedPlayer("second", table, ActionType.CHECK, ActionType.CALL);
+        new ScriptedPlayer("third", table, ActionType.CHECK, ActionType.CALL);
+        table.playHand();
+        final PlayIsStartedEvent started = first.started;
+        assert started.getPlayers().size() == 3;
+        for(GamePlayer p : started.getPlayers()){
+            assert p.getChipCount() == 1000;
+        }
+        assert started.getSmallBlindAmount() == 5;
+        assert started.getBigBlindAmount() == 10;
+        assert started.getDealer().getName().equals("first");
+        assert started.getSmallBlindPlayer().getName().equals("second");
+        assert started.getBigBlindPlayer().getName().equals("third");
+        assert started.getTableId() == 24;
+    }
+
+    @Test
+    public void shortAllInDoesNotReopenBetting(){
+        final LocalTable table = new LocalTable(5, 10, 1000, 24);
+        final ScriptedPlayer raiser = new ScriptedPlayer("raiser", table, ActionType.RAISE, ActionType.CALL, ActionType.CHECK);
+        new ScriptedPlayer("short", table, ActionType.ALL_IN);
+        new ScriptedPlayer("caller", table, ActionType.CALL, ActionType.CHECK);
+        table.setChips(1, 28);
+        table.playHand();
+        // The dealer raises to 20, the small blind goes all in for 28, 8 more, and the big blind calls
+        final List<ActionType> again = raiser.offered.get(1);
+        assert again.contains(ActionType.CALL);
+        assert !again.contains(ActionType.RAISE);
+    }
+
+    @Test
+    public void potTotalCountsEveryBet(){
+        final LocalTable table = new LocalTable(5, 10, 1000, 24);
+        final ScriptedPlayer raiser = new ScriptedPlayer("raiser", table, ActionType.RAISE, ActionType.CALL, ActionType.CHECK);
+        new ScriptedPlayer("short", table, ActionType.ALL_IN);
+        new ScriptedPlayer("caller", table, ActionType.CALL, ActionType.CHECK);
+        table.setChips(1, 28);
+        table.playHand();
+        // The blinds, then the raise to 20, the small blind all in for 28 and the big blind's call of 28
+        assert raiser.pots.get(0) == 15;
+        assert raiser.pots.get(1) == 20 + 28 + 28;
+    }
+
+    /**
+     * Three uneven stacks all in before the flop with known cards. The two pairs of nines tie
+     * for the main pot, the larger of them wins the side pot against king high, and the
+     * largest stack gets back what nobody could call.
+     */
+    @Test
+    public void sidePotsAndOddChip(){
+        final LocalTable table = new LocalTable(5, 10, 1000, 24);
+        new ScriptedPlayer("short", table, ActionType.ALL_IN);
+        new ScriptedPlayer("middle", table, ActionType.ALL_IN);
+        new ScriptedPlayer("large", table, ActionType.ALL_IN);
+        table.setChips(0, 101);
+        table.setChips(1, 251);
+        table.setChips(2, 500);
+        // Seat 0 deals, hole cards go to seats 1, 2, 0, 1, 2, 0
+        table.stackNextHand(
+                card(Rank.NINE, Suit.HEARTS), card(Rank.THREE, Suit.CLUBS), card(Rank.NINE, Suit.CLUBS),
+                card(Rank.NINE, Suit.SPADES), card(Rank.FOUR, Suit.DIAMONDS), card(Rank.NINE, Suit.DIAMONDS),
+                card(Rank.KING, Suit.CLUBS), card(Rank.EIGHT, Suit.DIAMONDS), card(Rank.SEVEN, Suit.HEARTS),
+                card(Rank.DEUCE, Suit.SPADES), card(Rank.SIX, Suit.CLUBS));
+        table.playHand();
+
+        // Main pot 3*101 = 303 split, the odd chip to the first winner after the dealer: seat 1
+        assert table.getChips(0) == 151;
+        // 152 of the main pot and the side pot 2*(251-101) = 300
+        assert table.getChips(1) == 452;
+        // 500-251 = 249 nobody called
+        assert table.getChips(2) == 249;
+    }
+
+    @Test
+    public void sameSeedSameHands(){
+        final long[] first = play(25);
+        final long[] second = play(25);
+        for(int ix = 0; ix < first.length; ++ix){
+            assert first[ix] == second[ix];
+        }
+    }
+
+    private static int card(Rank rank, Suit suit){
+        return CardSet.index(rank.ordinal(), suit.ordinal());
+    }
+
+    private static long[] play(long seed){
+        final LocalTable table = new LocalTable(5, 10, 500, seed);
+        new ScriptedPlayer("raiser", table, ActionType.RAISE, ActionType.CALL, ActionType.CHECK);
+        new ScriptedPlayer("caller", table, ActionType.CHECK, ActionType.CALL);
+        new ScriptedPlayer("shover", table, ActionType.ALL_IN);
+        table.playTournament(1000);
+        final long[] chips = new long[table.getSeats()];
+        for(int ix = 0; ix < chips.length; ++ix){
+            chips[ix] = table.getChips(ix);
+        }
+        return chips;
+    }
+}
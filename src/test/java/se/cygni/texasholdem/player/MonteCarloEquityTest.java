@@ -0,0 +1,37 @@
+package se.cygni.texasholdem.player;
+
+import org.junit.Test;
+import se.cygni.texasholdem.game.definitions.Rank;
+import se.cygni.texasholdem.game.definitions.Suit;
+
+public class MonteCarloEquityTest {
+
+    private static long card(Rank r, Suit s){
+        return CardSet.of(r.ordinal(), s.ordinal());
+    }
+
+    @Test
+    public void closeToExact(){
+        final long hole = card(Rank.ACE, Suit.SPADES) | card(Rank.QUEEN, Suit.HEARTS);
+        final long board = card(Rank.QUEEN, Suit.CLUBS) | card(Rank.SEVEN, Suit.DIAMONDS)
+                | card(Rank.DEUCE, Suit.CLUBS) | card(Rank.NINE, Suit.HEARTS);
+
+        final Equity exact = ExactEquity.compute(hole, board);
+        final Equity sampled = MonteCarloEquity.compute(hole, board, 1, 200000);
+        assert Math.abs(exact.getEquity() - sampled.getEquity()) < 0.005;
+    }
+
+    @Test
+    public void reproducible(){
+        final long hole = card(Rank.KING, Suit.SPADES) | card(Rank.KING, Suit.HEARTS);
+
+        final Equity a = MonteCarloEquity.compute(hole, CardSet.EMPTY, 4, 50000, 17L);
+        final Equity b = MonteCarloEquity.compute(hole, CardSet.EMPTY, 4, 50000, 17L);
+        assert a.getEquity() == b.getEquity();
+
+        // Against more opponents the share of the pot shrinks
+        final Equity more = MonteCarloEquity.compute(hole, CardSet.EMPTY, 8, 50000, 17L);
+        assert more.getEquity() < a.getEquity();
+        assert Math.abs(a.getEquity() - PreflopTable.equity(hole, 4)) < 0.01;
+    }
+}
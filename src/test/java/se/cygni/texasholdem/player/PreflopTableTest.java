@@ -0,0 +1,39 @@
+package se.cygni.texasholdem.player;
+
+import org.junit.Test;
+import se.cygni.texasholdem.game.Card;
+import se.cygni.texasholdem.game.definitions.Rank;
+import se.cygni.texasholdem.game.definitions.Suit;
+
+public class PreflopTableTest {
+
+    @Test
+    public void classes(){
+        final int ace = Rank.ACE.ordinal();
+        final int king = Rank.KING.ordinal();
+        assert PreflopTable.name(PreflopTable.classOf(ace, king, true)).equals("AKs");
+        assert PreflopTable.name(PreflopTable.classOf(king, ace, false)).equals("AKo");
+        assert PreflopTable.name(PreflopTable.classOf(ace, ace, false)).equals("AA");
+        assert PreflopTable.classOf(ace, king, true) != PreflopTable.classOf(ace, king, false);
+    }
+
+    @Test
+    public void ordering(){
+        assert PreflopTable.isLoaded();
+
+        final Card aceSpades = new Card(Rank.ACE, Suit.SPADES);
+        final Card aceHearts = new Card(Rank.ACE, Suit.HEARTS);
+        final Card seven = new Card(Rank.SEVEN, Suit.CLUBS);
+        final Card deuce = new Card(Rank.DEUCE, Suit.HEARTS);
+
+        for(int opponents = 1; opponents <= PreflopTable.MAX_OPPONENTS; ++opponents){
+            assert PreflopTable.equity(aceSpades, aceHearts, opponents) > PreflopTable.equity(seven, deuce, opponents);
+            if(opponents > 1){
+                assert PreflopTable.equity(aceSpades, aceHearts, opponents) < PreflopTable.equity(aceSpades, aceHearts, opponents-1);
+            }
+        }
+        final long hole = CardSet.of(aceSpades) | CardSet.of(aceHearts);
+        assert PreflopTable.equity(hole, 1) == PreflopTable.equity(aceSpades, aceHearts, 1);
+        assert PreflopTable.equity(hole, 1) > 0.8;
+    }
+}
@@ -0,0 +1,36 @@
+package se.cygni.texasholdem.player;
+
+import org.junit.Test;
+
+public class RocCurveTest {
+
+    @Test
+    public void separatedEstimatesHaveFullArea(){
+        final RocCurve roc = new RocCurve();
+        for(int ix = 0; ix < 100; ++ix){
+            roc.add(0.7 + ix/1000.0, true);
+            roc.add(0.2 + ix/1000.0, false);
+        }
+        assert Math.abs(roc.auc() - 1.0) < 1e-9;
+        final double best = roc.bestThreshold();
+        assert best >= 0.3 && best <= 0.7;
+    }
+
+    @Test
+    public void randomEstimatesHaveHalfArea(){
+        final SplitMix64 random = new SplitMix64(21);
+        final RocCurve roc = new RocCurve();
+        for(int ix = 0; ix < 100000; ++ix){
+            roc.add(random.nextInt(1 << 20) / (double) (1 << 20), random.nextInt(2) == 0);
+        }
+        assert Math.abs(roc.auc() - 0.5) < 0.01;
+    }
+
+    @Test
+    public void sameBinCountsHalf(){
+        final RocCurve roc = new RocCurve();
+        roc.add(0.5, true);
+        roc.add(0.5, false);
+        assert Math.abs(roc.auc() - 0.5) < 1e-9;
+    }
+}
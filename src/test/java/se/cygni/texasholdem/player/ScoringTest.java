@@ -6,6 +6,7 @@ import se.cygni.texasholdem.game.definitions.PokerHand;
 import se.cygni.texasholdem.game.definitions.Rank;
 import se.cygni.texasholdem.game.definitions.Suit;
 
+import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -45,6 +46,28 @@ public class ScoringTest {
         assert Scoring.compareHands(PokerHand.FULL_HOUSE, PokerHand.FULL_HOUSE) == 0;
     }
 
+    @Test
+    public void compareKickers(){
+        List<Card> board = new ArrayList<Card>();
+        board.add(new Card(Rank.NINE, Suit.CLUBS));
+        board.add(new Card(Rank.NINE, Suit.HEARTS));
+        board.add(new Card(Rank.FIVE, Suit.DIAMONDS));
+        board.add(new Card(Rank.FOUR, Suit.SPADES));
+        board.add(new Card(Rank.DEUCE, Suit.CLUBS));
+
+        List<Card> a = new ArrayList<Card>(board);
+        a.add(new Card(Rank.ACE, Suit.CLUBS));
+        a.add(new Card(Rank.SEVEN, Suit.CLUBS));
+        List<Card> b = new ArrayList<Card>(board);
+        b.add(new Card(Rank.KING, Suit.HEARTS));
+        b.add(new Card(Rank.QUEEN, Suit.HEARTS));
+
+        // Both have one pair, ace kicker wins
+        assert Scoring.compareHands(HandEvaluator.evaluate(a), HandEvaluator.evaluate(b)) > 0;
+        assert Scoring.compareHands(HandEvaluator.pokerHand(HandEvaluator.evaluate(a)),
+                HandEvaluator.pokerHand(HandEvaluator.evaluate(b))) == 0;
+    }
+
     @Test
     public void justRun(){
         List<Card> cards = new ArrayList<Card>();
@@ -71,6 +94,104 @@ public class ScoringTest {
     }
 
 
+    /**
+     * Scoring runs on every dealt card at many tables, so it should not create garbage.
+     */
+    @Test
+    public void chanceOfWinningDoesNotAllocate(){
+        final com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        final long thread = Thread.currentThread().getId();
+        final int[] deck = ExactEquity.liveCards(CardSet.EMPTY);
+        final SplitMix64 random = new SplitMix64(7);
+
+        // Warm up, also fills the probability cache with some hands.
+        double sum = 0.0;
+        for(int ix = 0; ix < 20000; ++ix){
+            sum += randomChance(deck, random);
+        }
+
+        final long before = threads.getThreadAllocatedBytes(thread);
+        for(int ix = 0; ix < 20000; ++ix){
+            sum += randomChance(deck, random);
+        }
+        final long allocated = threads.getThreadAllocatedBytes(thread) - before;
+
+        assert sum > 0.0;
+        assert allocated < 1024 : allocated + " bytes allocated";
+    }
+
+    private static double randomChance(int[] deck, SplitMix64 random){
+        final int known = 2 + random.nextInt(6);
+        long community = CardSet.EMPTY;
+        long mine = CardSet.EMPTY;
+        while(CardSet.size(mine) < known){
+            final long card = 1L << deck[random.nextInt(deck.length)];
+            if(CardSet.size(mine) >= 2 && (mine & card) == 0){
+                community |= card;
+            }
+            mine |= card;
+        }
+        return Scoring.chanceOfWinning(mine, community);
+    }
+
+    @Test
+    public void handStateMatchesRecount(){
+        HandState hand = new HandState();
+        hand.dealtToMe(new Card(Rank.ACE, Suit.CLUBS));
+        hand.dealtToMe(new Card(Rank.KING, Suit.CLUBS));
+        hand.dealtToCommunity(new Card(Rank.QUEEN, Suit.CLUBS));
+        hand.dealtToCommunity(new Card(Rank.DEUCE, Suit.HEARTS));
+        hand.dealtToCommunity(new Card(Rank.KING, Suit.DIAMONDS));
+
+        final long mine = hand.getHole() | hand.getBoard();
+        assert hand.getMine().getCards() == mine;
+        assert Statistics.closeEnough(Scoring.chanceOfWinning(hand.getMine(), hand.getCommunity())
+                - Scoring.chanceOfWinning(mine, hand.getBoard()));
+
+        hand.reset();
+        assert hand.getHoleSize() == 0 && hand.getBoardSize() == 0;
+    }
+
+    @Test
+    public void lazyProbabilitiesMatchEager(){
+        final SplitMix64 random = new SplitMix64(14);
+        final double[] eager = new double[PokerHand.values().length];
+        final double[] lazy = new double[PokerHand.values().length];
+        for(int ix = 0; ix < 5000; ++ix){
+            final int size = 2 + ix % 6;
+            long cards = CardSet.EMPTY;
+            while(CardSet.size(cards) < size){
+                cards |= CardSet.of(random.nextInt(CardSet.RANKS), random.nextInt(CardSet.SUITS));
+            }
+            Scoring.probabilities(cards, Scoring.countCards(cards), eager);
+            Scoring.lazyProbabilities(cards, Scoring.countCards(cards), lazy);
+            for(int h = 0; h < eager.length; ++h){
+                assert Math.abs(eager[h] - lazy[h]) < 1e-12 : CardSet.toString(cards);
+            }
+        }
+    }
+
+    /**
+     * Renamings of the suits share a cache entry, which must not depend on which of them came first.
+     */
+    @Test
+    public void cachedValueIndependentOfSuits(){
+        // Computed on the suits as dealt, the flush chances of these differ in the last bit
+        final long diamonds = CardSet.of(Rank.DEUCE.ordinal(), Suit.DIAMONDS.ordinal()) | CardSet.of(Rank.SEVEN.ordinal(), Suit.DIAMONDS.ordinal());
+        final long spades = CardSet.of(Rank.DEUCE.ordinal(), Suit.SPADES.ordinal()) | CardSet.of(Rank.SEVEN.ordinal(), Suit.SPADES.ordinal());
+        final double[] first = new double[PokerHand.values().length];
+        final double[] second = new double[PokerHand.values().length];
+
+        Scoring.getProbabilityCache().clear();
+        Scoring.probabilities(Scoring.countCards(diamonds), first);
+        Scoring.getProbabilityCache().clear();
+        Scoring.probabilities(Scoring.countCards(spades), second);
+        for(int h = 0; h < first.length; ++h){
+            assert first[h] == second[h];
+        }
+    }
+
     @Test
     public void experiment(){
         for(Rank r : Rank.values()){
@@ -0,0 +1,93 @@
+package se.cygni.texasholdem.player;
+
+import se.cygni.texasholdem.communication.message.event.*;
+import se.cygni.texasholdem.communication.message.request.ActionRequest;
+import se.cygni.texasholdem.game.Action;
+import se.cygni.texasholdem.game.ActionType;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Takes the first offered action in its order of preference, else folds.
+ * Without preferences it answers nothing.
+ */
+class ScriptedPlayer implements Player {
+    private final String name;
+    private final ActionType[] preferences;
+    volatile int forcedFolds = 0;
+    volatile boolean tableDone = false;
+    PlayIsStartedEvent started;
+    /** Actions offered in every request, in order. */
+    final List<List<ActionType>> offered = new ArrayList<List<ActionType>>();
+    /** Pot at every request when seated at a @see LocalTable */
+    final List<Long> pots = new ArrayList<Long>();
+    private TableView view;
+
+    ScriptedPlayer(String name, ActionType... preferences){
+        this.name = name;
+        this.preferences = preferences;
+    }
+
+    ScriptedPlayer(String name, LocalTable table, ActionType... preferences){
+        this(name, preferences);
+        view = table.seat(this);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Action actionRequired(ActionRequest request) {
+        final List<ActionType> types = new ArrayList<ActionType>();
+        for(Action a : request.getPossibleActions()){
+            types.add(a.getActionType());
+        }
+        offered.add(types);
+        if(view != null){
+            pots.add(view.getPotTotal());
+        }
+        for(ActionType type : preferences){
+            for(Action a : request.getPossibleActions()){
+                if(a.getActionType() == type){
+                    return a;
+                }
+            }
+        }
+        return preferences.length == 0 ? null : new Action(ActionType.FOLD, 0);
+    }
+
+    @Override
+    public void onPlayerForcedFolded(PlayerForcedFoldedEvent e) {
+        forcedFolds++;
+    }
+
+    @Override
+    public void onTableIsDone(TableIsDoneEvent e) {
+        tableDone = true;
+    }
+
+    @Override
+    public void onPlayIsStarted(PlayIsStartedEvent e) {
+        started = e;
+    }
+
+    @Override public void onTableChangedStateEvent(TableChangedStateEvent e) {}
+    @Override public void onYouHaveBeenDealtACard(YouHaveBeenDealtACardEvent e) {}
+    @Override public void onCommunityHasBeenDealtACard(CommunityHasBeenDealtACardEvent e) {}
+    @Override public void onPlayerBetBigBlind(PlayerBetBigBlindEvent e) {}
+    @Override public void onPlayerBetSmallBlind(PlayerBetSmallBlindEvent e) {}
+    @Override public void onPlayerFolded(PlayerFoldedEvent e) {}
+    @Override public void onPlayerCalled(PlayerCalledEvent e) {}
+    @Override public void onPlayerRaised(PlayerRaisedEvent e) {}
+    @Override public void onPlayerWentAllIn(PlayerWentAllInEvent e) {}
+    @Override public void onPlayerChecked(PlayerCheckedEvent e) {}
+    @Override public void onYouWonAmount(YouWonAmountEvent e) {}
+    @Override public void onShowDown(ShowDownEvent e) {}
+    @Override public void onPlayerQuit(PlayerQuitEvent e) {}
+    @Override public void connectionToGameServerLost() {}
+    @Override public void connectionToGameServerEstablished() {}
+    @Override public void serverIsShuttingDown(ServerIsShuttingDownEvent e) {}
+}
@@ -0,0 +1,39 @@
+package se.cygni.texasholdem.player;
+
+import org.junit.Test;
+
+public class SimulateTest {
+
+    @Test
+    public void shardsGiveSameResultOnAnyThreads(){
+        final ProbabilityCache shared = Scoring.getProbabilityCache();
+        shared.clear();
+        final Simulate.Summary one = Simulate.runSimulation(1500, 2, 1, 19, EquityEstimators.SCORING, 400);
+        shared.clear();
+        final Simulate.Summary three = Simulate.runSimulation(1500, 2, 3, 19, EquityEstimators.SCORING, 400);
+        // Every shard used its own cache
+        assert shared.getHits() + shared.getMisses() == 0;
+        assert one.getWonA() == three.getWonA();
+        assert one.getExpectedA() == three.getExpectedA();
+        for(int street = 0; street < 4; ++street){
+            // Four shards of two players add up to every round on every street
+            assert one.getCalibration(street).getTotal() == 3000;
+            assert one.getCalibration(street).brierScore() == three.getCalibration(street).brierScore();
+            assert one.getRocCurve(street).auc() == three.getRocCurve(street).auc();
+        }
+    }
+
+    @Test
+    public void multiwaySharesAddUp(){
+        final Simulate.Summary six = Simulate.runSimulation(3000, 6, 1, 23, EquityEstimators.SCORING, 1000);
+        assert six.getPlayers() == 6;
+        double shares = 0.0;
+        for(int seat = 0; seat < 6; ++seat){
+            shares += six.getShare(seat);
+            // Every seat gets about a sixth of the pots, standard deviation about 0.007
+            assert Math.abs(six.getShare(seat) - 1/6.0) < 0.035;
+            assert six.getWon(seat) <= six.getShare(seat);
+        }
+        assert Math.abs(shares - 1.0) < 1e-9;
+    }
+}
@@ -0,0 +1,132 @@
+package se.cygni.texasholdem.player;
+
+import org.junit.Test;
+import se.cygni.texasholdem.client.PlayerClient;
+import se.cygni.texasholdem.communication.message.TexasMessageParser;
+import se.cygni.texasholdem.communication.message.request.RegisterForPlayRequest;
+import se.cygni.texasholdem.game.ActionType;
+import se.cygni.texasholdem.game.Room;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+
+public class StandInServerTest {
+
+    /**
+     * Two PlayerClients over Netty and JSON on localhost, as bots would play against the server.
+     */
+    @Test
+    public void clientsPlayATable() throws Exception {
+        final StandInServer server = new StandInServer(0, 2, 5, 5000);
+        server.start();
+        try {
+            final ScriptedPlayer[] players = connect(server);
+            waitForTableDone(players, 30000);
+            for(ScriptedPlayer p : players){
+                assert p.tableDone;
+            }
+            final LatencyRecorder latency = server.getLatency();
+            assert latency.getCount() > 0;
+            assert latency.getTimeouts() == 0;
+        } finally {
+            server.stop();
+        }
+    }
+
+    /**
+     * Stopping in the middle of a table ends it after the hand being played, not by forced folds.
+     */
+    @Test
+    public void stopEndsTablesBetweenHands() throws Exception {
+        final StandInServer server = new StandInServer(0, 2, 1000000, 5000);
+        server.start();
+        final ScriptedPlayer[] players;
+        try {
+            players = connect(server);
+            final long deadline = System.currentTimeMillis() + 30000;
+            while(server.getLatency().getCount() < 10 && System.currentTimeMillis() < deadline){
+                Thread.sleep(10);
+            }
+        } finally {
+            server.stop();
+        }
+        final LatencyRecorder latency = server.getLatency();
+        assert latency.getCount() >= 10;
+        assert latency.getTimeouts() == 0;
+        // The table told the players it was done before the connections closed
+        waitForTableDone(players, 5000);
+        for(ScriptedPlayer p : players){
+            assert p.tableDone;
+            assert p.forcedFolds == 0;
+        }
+    }
+
+    /**
+     * The client's frames end with the server's delimiter, read from a plain socket
+     * so that nothing on this end uses the delimiter to split them.
+     */
+    @Test
+    public void clientFramesWithTheServerDelimiter() throws Exception {
+        final ServerSocket socket = new ServerSocket(0);
+        try {
+            final PlayerClient client = new PlayerClient(new ScriptedPlayer("framed"), "localhost", socket.getLocalPort());
+            final Thread register = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        client.connect();
+                        client.registerForPlay(Room.TRAINING);
+                    } catch (Exception e){
+                        // No answer comes, only the request is read
+                    }
+                }
+            };
+            register.setDaemon(true);
+            register.start();
+
+            socket.setSoTimeout(10000);
+            final Socket connection = socket.accept();
+            try {
+                final InputStream in = connection.getInputStream();
+                final ByteArrayOutputStream read = new ByteArrayOutputStream();
+                String frame = "";
+                while(!frame.endsWith(StandInServer.DELIMITER)){
+                    final int b = in.read();
+                    assert b >= 0 : "Closed before a delimiter, read "+frame;
+                    read.write(b);
+                    frame = read.toString("UTF-8");
+                }
+                final String message = frame.substring(0, frame.length() - StandInServer.DELIMITER.length());
+                final RegisterForPlayRequest request = (RegisterForPlayRequest) TexasMessageParser.decodeMessage(message);
+                assert request.getName().equals("framed");
+            } finally {
+                connection.close();
+            }
+        } finally {
+            socket.close();
+        }
+    }
+
+    private static ScriptedPlayer[] connect(StandInServer server) throws Exception {
+        final ScriptedPlayer[] players = {
+                new ScriptedPlayer("raiser", ActionType.RAISE, ActionType.CALL, ActionType.CHECK),
+                new ScriptedPlayer("caller", ActionType.CHECK, ActionType.CALL)};
+        for(ScriptedPlayer p : players){
+            final PlayerClient client = new PlayerClient(p, "localhost", server.getPort());
+            client.connect();
+            client.registerForPlay(Room.TRAINING);
+        }
+        return players;
+    }
+
+    private static void waitForTableDone(ScriptedPlayer[] players, long millis) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + millis;
+        for(ScriptedPlayer p : players){
+            while(!p.tableDone && System.currentTimeMillis() < deadline){
+                Thread.sleep(10);
+            }
+        }
+    }
+}
@@ -2,11 +2,13 @@ package se.cygni.texasholdem.player;
 
 import org.junit.Test;
 import se.cygni.texasholdem.game.Card;
+import se.cygni.texasholdem.game.definitions.PokerHand;
 import se.cygni.texasholdem.game.definitions.Rank;
 import se.cygni.texasholdem.game.definitions.Suit;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Created by HalfLeif on 2015-04-21.
@@ -21,6 +23,60 @@ public class StatTest {
         assert Statistics.combinations(8,0) == 1.0;
     }
 
+    @Test
+    public void tablesMatchLoops(){
+        // Half cards are not in the tables
+        assert Statistics.closeEnough(Statistics.combinations(8.5, 2) - 8.5*7.5/2);
+        assert Statistics.combinations(52, 26) == 495918532948104.0;
+        assert Statistics.combinations(3, 5) == 0.0;
+
+        for(int draws = 0; draws <= 7; ++draws){
+            for(int wants = 0; wants <= draws; ++wants){
+                double sum = 0.0;
+                for(int ix = wants; ix <= draws; ++ix){
+                    sum += Statistics.drawExactly(ix, draws, 4, 40);
+                }
+                assert Statistics.closeEnough(Statistics.drawAtLeast(wants, draws, 4, 40) - sum);
+                assert Statistics.closeEnough(Statistics.drawAtLeast(wants, draws, 4, 40)
+                        - Statistics.drawAtLeast(wants + 0.0, draws + 0.0, 4.0, 40.5 - 0.5));
+            }
+        }
+        // Probability of a card of every type is the complement of missing some type
+        assert Statistics.closeEnough(Statistics.atLeastOneOfSeveral(4, 1, 2, 46)
+                - (1.0 - Statistics.drawExactly(0, 2, 4, 42)));
+    }
+
+    @Test
+    public void runIsReproducible(){
+        // Three chunks, the last one partial
+        final long iters = (1 << 21) + 1000;
+        final String one = Statistics.run(iters, 16, 1);
+        assert one.equals(Statistics.run(iters, 16, 3));
+        assert !one.equals(Statistics.run(iters, 17, 2));
+
+        long total = 0;
+        for(long n : Statistics.count(1000, new SplitMix64(16))){
+            total += n;
+        }
+        assert total == 1000;
+    }
+
+    @Test
+    public void scoreTableMatchesGenerator() throws Exception {
+        final long[] counts = ScoreTableGenerator.generate(Runtime.getRuntime().availableProcessors());
+        long total = 0;
+        for(PokerHand h : PokerHand.values()){
+            assert ScoreTable.count(h) == counts[h.ordinal()] : h;
+            total += counts[h.ordinal()];
+        }
+        assert total == ScoreTable.HANDS;
+
+        final Map<PokerHand, Double> score = Statistics.score();
+        assert Statistics.closeEnough(score.get(PokerHand.ONE_PAIR) - 23294460.0 / 133784560.0);
+        assert score.get(PokerHand.ROYAL_FLUSH) < 1.0;
+        assert score.get(PokerHand.HIGH_HAND) == 0.0;
+    }
+
     @Test
     public void testDrawExact(){
         assert Statistics.closeEnough(Statistics.drawExactly(2, 3, 3, 8) - 24.0 / 165.0);
@@ -0,0 +1,60 @@
+package se.cygni.texasholdem.player;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+public class SuitIsomorphismTest {
+
+    private static int classes(int cards){
+        final Set<Long> seen = new HashSet<Long>();
+        collect(CardSet.EMPTY, ExactEquity.liveCards(CardSet.EMPTY), 0, cards, seen);
+        return seen.size();
+    }
+
+    private static void collect(long set, int[] deck, int from, int left, Set<Long> seen){
+        if(left == 0){
+            seen.add(SuitIsomorphism.canonical(set));
+            return;
+        }
+        for(int ix = from; ix < deck.length; ++ix){
+            collect(set | 1L << deck[ix], deck, ix+1, left-1, seen);
+        }
+    }
+
+    @Test
+    public void numberOfClasses(){
+        assert classes(2) == 169;
+        assert classes(3) == 1755;
+    }
+
+    @Test
+    public void sameProbabilities(){
+        // Ace and king of suit 0 and a queen of suit 1, then with suits 0 and 1 swapped
+        final long cards = CardSet.of(12, 0) | CardSet.of(11, 0) | CardSet.of(10, 1);
+        final long swapped = CardSet.of(12, 1) | CardSet.of(11, 1) | CardSet.of(10, 0);
+
+        assert SuitIsomorphism.canonical(cards) == SuitIsomorphism.canonical(swapped);
+        assert Scoring.probabilities(cards).equals(Scoring.probabilities(swapped));
+    }
+
+    @Test
+    public void cacheEvictsLeastRecentlyUsed(){
+        final ProbabilityCache cache = new ProbabilityCache(2, 1);
+        final double[] out = new double[1];
+
+        cache.put(1L, new double[]{0.1});
+        cache.put(2L, new double[]{0.2});
+        assert cache.get(1L, out) && out[0] == 0.1;
+
+        cache.put(3L, new double[]{0.3});
+        assert !cache.get(2L, out);
+        assert cache.get(1L, out) && out[0] == 0.1;
+        assert cache.get(3L, out) && out[0] == 0.3;
+
+        assert cache.size() == 2;
+        assert cache.getHits() == 3;
+        assert cache.getMisses() == 1;
+    }
+}